@@ -0,0 +1,38 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.channel.raknet;
+
+import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
+
+/**
+ * Defines when a RakNet session sends acknowledgements for received datagrams.
+ */
+public enum RakAckPolicy {
+    /**
+     * Acknowledge received datagrams as soon as the current read has been processed.
+     */
+    IMMEDIATE,
+    /**
+     * Acknowledge once {@link RakChannelOption#RAK_ACK_DELAY_DATAGRAMS} datagrams have been received
+     * or the oldest unacknowledged datagram is {@link RakChannelOption#RAK_ACK_DELAY_MS} old, whichever comes first.
+     */
+    DELAYED,
+    /**
+     * Acknowledge all received datagrams once per session tick.
+     */
+    TICK
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.channel.raknet;
+
+import org.cloudburstmc.netty.channel.raknet.packet.RakDatagramPacket;
+
+/**
+ * Model based {@link RakCongestionController} following the ideas of BBR.
+ * <p>
+ * The controller estimates the bottleneck bandwidth as the maximum delivery rate over the last rounds and the
+ * propagation delay as the minimum RTT. The congestion window is kept at a multiple of their product and new datagrams
+ * are paced at the estimated bandwidth. Loss alone does not shrink the window, so random loss on wireless links does
+ * not collapse the throughput.
+ */
+public class RakBbrController implements RakCongestionController {
+
+    private static final double STARTUP_GAIN = 2.89D;
+    private static final double DRAIN_GAIN = 1D / STARTUP_GAIN;
+    private static final double CWND_GAIN = 2D;
+    private static final double[] PROBE_BW_GAINS = {1.25D, 0.75D, 1D, 1D, 1D, 1D, 1D, 1D};
+    private static final int BANDWIDTH_WINDOW_ROUNDS = 10;
+    private static final long MIN_RTT_WINDOW_MS = 10_000;
+    private static final int FULL_BANDWIDTH_ROUNDS = 3;
+    private static final double FULL_BANDWIDTH_GROWTH = 1.25D;
+    /**
+     * Upper bound of the pacing budget so an idle session cannot build up a large burst.
+     */
+    private static final long MAX_BURST_MS = 10;
+
+    private enum Mode {
+        STARTUP,
+        DRAIN,
+        PROBE_BW
+    }
+
+    private final int mtu;
+    private Mode mode = Mode.STARTUP;
+    private double cwnd;
+    private int unackedBytes;
+
+    // Round trip and bandwidth estimation, bandwidth is in bytes per ms
+    private final double[] bandwidthSamples = new double[BANDWIDTH_WINDOW_ROUNDS];
+    private long roundCount;
+    private long roundStart = -1;
+    private int roundDelivered;
+    private double bandwidth;
+    private double fullBandwidth;
+    private int fullBandwidthCount;
+    private boolean filledPipe;
+    private long minRtt = -1;
+    private long minRttStamp;
+    private final RakRttEstimator rttEstimator = new RakRttEstimator();
+
+    // Pacing
+    private int cycleIndex;
+    private double pacingBudget;
+    private long lastPacingTime = -1;
+
+    public RakBbrController(int mtu) {
+        this.mtu = mtu;
+        this.cwnd = this.getMinimumCwnd();
+    }
+
+    @Override
+    public int getTransmissionBandwidth() {
+        int window = this.unackedBytes < this.cwnd ? (int) (this.cwnd - this.unackedBytes) : 0;
+        if (this.bandwidth <= 0) {
+            return window; // No model yet, only the initial window applies
+        }
+        return Math.min(window, (int) this.pacingBudget);
+    }
+
+    @Override
+    public void onTick(long curTime) {
+        if (this.bandwidth <= 0) {
+            return;
+        }
+
+        double rate = this.getPacingGain() * this.bandwidth;
+        double maxBudget = Math.max(rate * MAX_BURST_MS, this.mtu);
+        if (this.lastPacingTime == -1) {
+            this.pacingBudget = maxBudget;
+        } else {
+            this.pacingBudget = Math.min(this.pacingBudget + rate * (curTime - this.lastPacingTime), maxBudget);
+        }
+        this.lastPacingTime = curTime;
+    }
+
+    @Override
+    public boolean isPacing() {
+        return true;
+    }
+
+    @Override
+    public int getRetransmissionBandwidth() {
+        return this.unackedBytes;
+    }
+
+    @Override
+    public long getRtoForRetransmission() {
+        return this.rttEstimator.getRtoForRetransmission();
+    }
+
+    @Override
+    public double getRTT() {
+        return this.rttEstimator.getRTT();
+    }
+
+    @Override
+    public void onSend(RakDatagramPacket datagram) {
+        if (this.pacingBudget > 0) {
+            this.pacingBudget = Math.max(0, this.pacingBudget - datagram.getSize());
+        }
+    }
+
+    @Override
+    public void onReliableSend(RakDatagramPacket datagram) {
+        this.unackedBytes += datagram.getSize();
+    }
+
+    @Override
+    public void onAck(long curTime, RakDatagramPacket datagram, long curSequenceIndex) {
+        int size = datagram.getSize();
+        this.unackedBytes -= size;
+        this.roundDelivered += size;
+
+        // The acknowledgement of a resent datagram may belong to any of its transmissions, so it is no RTT sample
+        if (!datagram.isRetransmitted()) {
+            this.updateRtt(curTime, curTime - datagram.getSendTime());
+        }
+
+        if (this.roundStart == -1) {
+            this.roundStart = datagram.getSendTime();
+        }
+
+        // A round ends once a datagram sent after the start of the round is acknowledged,
+        // but lasts at least one minimum RTT to avoid sampling a burst of acknowledgements.
+        if (datagram.getSendTime() >= this.roundStart && curTime - this.roundStart >= Math.max(this.minRtt, 1)) {
+            this.onRoundEnd(curTime);
+        }
+
+        this.updateCwnd(size);
+    }
+
+    @Override
+    public void onNak() {
+        // Loss is not a congestion signal for this model
+    }
+
+    @Override
+    public void onResend(long curSequenceIndex) {
+        // Loss is not a congestion signal for this model
+    }
+
+    private void updateRtt(long curTime, long rtt) {
+        this.rttEstimator.update(rtt);
+
+        if (this.minRtt == -1 || rtt <= this.minRtt || curTime - this.minRttStamp > MIN_RTT_WINDOW_MS) {
+            this.minRtt = rtt;
+            this.minRttStamp = curTime;
+        }
+    }
+
+    private void onRoundEnd(long curTime) {
+        double sample = (double) this.roundDelivered / (curTime - this.roundStart);
+        this.bandwidthSamples[(int) (this.roundCount++ % BANDWIDTH_WINDOW_ROUNDS)] = sample;
+        this.roundDelivered = 0;
+        this.roundStart = curTime;
+
+        double max = 0;
+        for (double bandwidthSample : this.bandwidthSamples) {
+            max = Math.max(max, bandwidthSample);
+        }
+        this.bandwidth = max;
+
+        switch (this.mode) {
+            case STARTUP:
+                if (this.bandwidth >= this.fullBandwidth * FULL_BANDWIDTH_GROWTH) {
+                    this.fullBandwidth = this.bandwidth;
+                    this.fullBandwidthCount = 0;
+                } else if (++this.fullBandwidthCount >= FULL_BANDWIDTH_ROUNDS) {
+                    this.filledPipe = true;
+                    this.mode = Mode.DRAIN;
+                }
+                break;
+            case DRAIN:
+                if (this.unackedBytes <= this.getBdp()) {
+                    this.mode = Mode.PROBE_BW;
+                    this.cycleIndex = 0;
+                }
+                break;
+            case PROBE_BW:
+                this.cycleIndex = (this.cycleIndex + 1) % PROBE_BW_GAINS.length;
+                break;
+        }
+    }
+
+    private void updateCwnd(int ackedBytes) {
+        double target = Math.max(this.getMinimumCwnd(), CWND_GAIN * this.getBdp());
+        if (this.filledPipe) {
+            this.cwnd = Math.min(this.cwnd + ackedBytes, target);
+        } else {
+            this.cwnd += ackedBytes;
+        }
+        this.cwnd = Math.max(this.cwnd, this.getMinimumCwnd());
+    }
+
+    private double getPacingGain() {
+        switch (this.mode) {
+            case STARTUP:
+                return STARTUP_GAIN;
+            case DRAIN:
+                return DRAIN_GAIN;
+            default:
+                return PROBE_BW_GAINS[this.cycleIndex];
+        }
+    }
+
+    private double getBdp() {
+        // Use at least one millisecond as the RTT, LAN round trips are often measured as zero
+        return this.bandwidth * Math.max(this.minRtt, 1);
+    }
+
+    private double getMinimumCwnd() {
+        return 4D * this.mtu;
+    }
+
+    public double getBandwidth() {
+        return this.bandwidth;
+    }
+
+    public long getMinRtt() {
+        return this.minRtt;
+    }
+
+    public int getUnackedBytes() {
+        return this.unackedBytes;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.channel.raknet;
+
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RakClock} which reads the {@link RakClock#MONOTONIC} clock once when the current thread starts processing
+ * RakNet sessions and returns that value until processing ends.
+ * <p>
+ * Processing is delimited by {@link #enter()} and {@link #exit()}, which the session ticker and the inbound routing
+ * handlers call once per tick or datagram. Outside of these sections the clock is read directly, so the cached value
+ * can never go stale.
+ */
+public final class RakCachedClock implements RakClock {
+
+    public static final RakCachedClock INSTANCE = new RakCachedClock();
+
+    private static final long ORIGIN_MILLIS = System.currentTimeMillis();
+    private static final long ORIGIN_NANOS = System.nanoTime();
+
+    // [0] = cached time, [1] = nesting depth
+    private static final FastThreadLocal<long[]> STATE = new FastThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[2];
+        }
+    };
+
+    private RakCachedClock() {
+    }
+
+    static long monotonicMillis() {
+        return ORIGIN_MILLIS + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - ORIGIN_NANOS);
+    }
+
+    /**
+     * Starts a section in which the clock is cached. Nested sections refresh the cached time.
+     */
+    public static void enter() {
+        long[] state = STATE.get();
+        state[0] = monotonicMillis();
+        state[1]++;
+    }
+
+    /**
+     * Ends the section started by the matching {@link #enter()}.
+     */
+    public static void exit() {
+        long[] state = STATE.get();
+        if (state[1] > 0) {
+            state[1]--;
+        }
+    }
+
+    @Override
+    public long millis() {
+        long[] state = STATE.getIfExists();
+        if (state != null && state[1] > 0) {
+            return state[0];
+        }
+        return monotonicMillis();
+    }
+}
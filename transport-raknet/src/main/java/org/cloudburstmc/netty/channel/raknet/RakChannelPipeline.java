@@ -18,17 +18,24 @@ package org.cloudburstmc.netty.channel.raknet;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.DefaultChannelPipeline;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import org.cloudburstmc.netty.channel.raknet.packet.EncapsulatedPacket;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class RakChannelPipeline extends DefaultChannelPipeline {
 
     private static final InternalLogger log = InternalLoggerFactory.getInstance(RakChannelPipeline.class);
 
     private final RakChildChannel child;
+    // Messages decoded during one read, delivered to the child once the read completes
+    private List<Object> pendingReads;
+    private boolean readPending;
 
     protected RakChannelPipeline(Channel parent, RakChildChannel child) {
         super(parent);
@@ -53,19 +60,40 @@ public class RakChannelPipeline extends DefaultChannelPipeline {
             final Object message = msg instanceof EncapsulatedPacket ? ((EncapsulatedPacket) msg).toMessage() : msg;
             ReferenceCountUtil.retain(message);
             if (this.child.eventLoop().inEventLoop()) {
-                this.child.pipeline().fireChannelRead(message).fireChannelReadComplete();
+                this.child.pipeline().fireChannelRead(message);
+                this.readPending = true;
             } else {
-                this.child.eventLoop().execute(() -> {
-                    this.child.pipeline()
-                            .fireChannelRead(message)
-                            .fireChannelReadComplete();
-                });
+                if (this.pendingReads == null) {
+                    this.pendingReads = new ArrayList<>();
+                }
+                this.pendingReads.add(message);
             }
         } finally {
             ReferenceCountUtil.release(msg);
         }
     }
 
+    @Override
+    protected void onUnhandledInboundChannelReadComplete() {
+        if (this.readPending) {
+            this.readPending = false;
+            this.child.pipeline().fireChannelReadComplete();
+        }
+
+        if (this.pendingReads != null) {
+            // Hand over the whole read in a single task
+            final List<Object> messages = this.pendingReads;
+            this.pendingReads = null;
+            this.child.eventLoop().execute(() -> {
+                ChannelPipeline pipeline = this.child.pipeline();
+                for (Object message : messages) {
+                    pipeline.fireChannelRead(message);
+                }
+                pipeline.fireChannelReadComplete();
+            });
+        }
+    }
+
     @Override
     protected void onUnhandledInboundUserEventTriggered(Object evt) {
         this.child.pipeline().fireUserEventTriggered(evt);
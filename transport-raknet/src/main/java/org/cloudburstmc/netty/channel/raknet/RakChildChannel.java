@@ -18,6 +18,7 @@ package org.cloudburstmc.netty.channel.raknet;
 
 import io.netty.channel.*;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.PlatformDependent;
 import org.cloudburstmc.netty.channel.raknet.config.DefaultRakSessionConfig;
 import org.cloudburstmc.netty.channel.raknet.config.RakChannelConfig;
 import org.cloudburstmc.netty.handler.codec.raknet.common.*;
@@ -28,6 +29,8 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.NonWritableChannelException;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 public class RakChildChannel extends AbstractChannel implements RakChannel {
@@ -38,6 +41,9 @@ public class RakChildChannel extends AbstractChannel implements RakChannel {
     private final InetSocketAddress remoteAddress;
     private final InetSocketAddress localAddress;
     private final DefaultChannelPipeline rakPipeline;
+    // Writes from another event loop are handed to the parent loop in batches, one task per flush
+    private final Queue<Object> pendingWrites = PlatformDependent.newMpscQueue();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
     private volatile boolean open = true;
     private volatile boolean active;
 
@@ -49,6 +55,8 @@ public class RakChildChannel extends AbstractChannel implements RakChannel {
         this.config.setGuid(guid);
         this.config.setProtocolVersion(version);
         this.config.setMtu(mtu);
+        // Sessions use the clock of the server unless the child consumer overrides it
+        this.config.setClock(parent.config().getClock());
         // Allow user to configure the child channel before we initialize pipeline
         // This is not the same as bootstrap.childOption() as Bootstrap does not allow setting options per channel
         if (childConsumer != null) {
@@ -127,6 +135,7 @@ public class RakChildChannel extends AbstractChannel implements RakChannel {
         } else if (!active) {
             throw new NonWritableChannelException();
         }
+        boolean inEventLoop = this.parent().eventLoop().inEventLoop();
         ClosedChannelException exception = null;
         for (; ; ) {
             Object msg = in.current();
@@ -135,7 +144,11 @@ public class RakChildChannel extends AbstractChannel implements RakChannel {
             }
             try {
                 if (this.parent().isOpen()) {
-                    this.rakPipeline.write(ReferenceCountUtil.retain(msg));
+                    if (inEventLoop) {
+                        this.rakPipeline.write(ReferenceCountUtil.retain(msg));
+                    } else {
+                        this.pendingWrites.offer(ReferenceCountUtil.retain(msg));
+                    }
                     in.remove();
                 } else {
                     if (exception == null) {
@@ -147,7 +160,36 @@ public class RakChildChannel extends AbstractChannel implements RakChannel {
                 in.remove(cause);
             }
         }
-        this.rakPipeline.flush();
+
+        if (inEventLoop) {
+            this.rakPipeline.flush();
+        } else if (!this.pendingWrites.isEmpty() && this.writeScheduled.compareAndSet(false, true)) {
+            this.parent().eventLoop().execute(this::writePending);
+        }
+    }
+
+    private void writePending() {
+        // Reset before draining so writes queued in the meantime schedule a new task
+        this.writeScheduled.set(false);
+
+        boolean open = this.parent().isOpen();
+        RakCachedClock.enter();
+        try {
+            Object msg;
+            while ((msg = this.pendingWrites.poll()) != null) {
+                if (open) {
+                    this.rakPipeline.write(msg);
+                } else {
+                    ReferenceCountUtil.release(msg);
+                }
+            }
+
+            if (open) {
+                this.rakPipeline.flush();
+            }
+        } finally {
+            RakCachedClock.exit();
+        }
     }
 
     public void setActive(boolean active) {
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.channel.raknet;
+
+import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
+
+/**
+ * Time source of RakNet sessions, used for RTT estimation, retransmission and timeouts.
+ * <p>
+ * Implementations must be monotonic. The values only have to be comparable with each other,
+ * they do not have to be related to the wall clock.
+ *
+ * @see RakChannelOption#RAK_CLOCK
+ */
+@FunctionalInterface
+public interface RakClock {
+
+    /**
+     * Monotonic clock derived from {@link System#nanoTime()}. It is anchored to the wall clock when the class is
+     * initialized, but does not follow wall clock adjustments afterwards.
+     */
+    RakClock MONOTONIC = RakCachedClock::monotonicMillis;
+
+    /**
+     * Default clock which caches {@link #MONOTONIC} per event loop while it processes RakNet sessions,
+     * so all sessions ticked or read together share a single clock read.
+     *
+     * @see RakCachedClock
+     */
+    RakClock CACHED = RakCachedClock.INSTANCE;
+
+    /**
+     * @return current time in milliseconds
+     */
+    long millis();
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.channel.raknet;
+
+import org.cloudburstmc.netty.channel.raknet.packet.RakDatagramPacket;
+
+/**
+ * Congestion control algorithm of a single RakNet session.
+ * <p>
+ * The session codec reports every tick, send, reliable send, acknowledgement, negative acknowledgement and resend to the controller
+ * and asks it how many bytes may be sent or resent on each flush. All methods are called from the event loop of the session.
+ *
+ * @see RakCongestionControllerFactory
+ * @see RakSlidingWindow
+ */
+public interface RakCongestionController {
+
+    /**
+     * @return number of bytes which may be sent in new datagrams
+     */
+    int getTransmissionBandwidth();
+
+    /**
+     * @return number of bytes which may be resent in stale datagrams
+     */
+    int getRetransmissionBandwidth();
+
+    /**
+     * @return time in milliseconds after which an unacknowledged reliable datagram is resent
+     */
+    long getRtoForRetransmission();
+
+    /**
+     * @return estimated round trip time in milliseconds, or -1 if not yet known
+     */
+    double getRTT();
+
+    /**
+     * Rate at which new datagrams should be paced if pacing is enabled.
+     *
+     * @return pacing rate in bytes per millisecond, or a non-positive value to spread the transmission bandwidth
+     * evenly across the flush interval
+     * @see org.cloudburstmc.netty.channel.raknet.config.RakChannelOption#RAK_PACING_INTERVAL_MS
+     */
+    default double getPacingRate() {
+        return -1;
+    }
+
+    /**
+     * Whether the controller already limits {@link #getTransmissionBandwidth()} to its own pacing rate.
+     * The session then skips its token bucket, so datagrams are not throttled twice.
+     */
+    default boolean isPacing() {
+        return false;
+    }
+
+    /**
+     * Called on every tick of the session before it asks for the transmission bandwidth.
+     *
+     * @param curTime current time in milliseconds
+     */
+    default void onTick(long curTime) {
+    }
+
+    /**
+     * Called for every datagram written to the remote peer, reliable or not, including resends.
+     */
+    default void onSend(RakDatagramPacket datagram) {
+    }
+
+    /**
+     * Called when a reliable datagram is sent for the first time.
+     */
+    void onReliableSend(RakDatagramPacket datagram);
+
+    /**
+     * Called when a reliable datagram was acknowledged by the remote peer.
+     *
+     * @param curTime          current time in milliseconds
+     * @param datagram         acknowledged datagram
+     * @param curSequenceIndex highest sequence index received from the remote peer
+     */
+    void onAck(long curTime, RakDatagramPacket datagram, long curSequenceIndex);
+
+    /**
+     * Called once for every batch of negative acknowledgements received from the remote peer.
+     */
+    void onNak();
+
+    /**
+     * Called after stale datagrams were resent during a flush.
+     *
+     * @param curSequenceIndex next sequence index which will be sent
+     */
+    void onResend(long curSequenceIndex);
+
+    /**
+     * Called when a datagram was received from the remote peer.
+     */
+    default void onPacketReceived(long curTime) {
+    }
+
+    /**
+     * Called when acknowledgements were sent to the remote peer.
+     */
+    default void onSendAck() {
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.channel.raknet;
+
+import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
+
+/**
+ * Creates the {@link RakCongestionController} of a session once it becomes connected.
+ *
+ * @see RakChannelOption#RAK_CONGESTION_CONTROLLER
+ */
+@FunctionalInterface
+public interface RakCongestionControllerFactory {
+
+    /**
+     * Default factory which creates a {@link RakSlidingWindow}.
+     */
+    RakCongestionControllerFactory SLIDING_WINDOW = (channel, mtu) -> new RakSlidingWindow(mtu);
+
+    /**
+     * Factory which creates a {@link RakBbrController}.
+     */
+    RakCongestionControllerFactory BBR = (channel, mtu) -> new RakBbrController(mtu);
+
+    /**
+     * Factory which creates a {@link RakLedbatController} using {@link RakChannelOption#RAK_TARGET_QUEUE_DELAY_MS}.
+     */
+    RakCongestionControllerFactory LEDBAT = (channel, mtu) ->
+            new RakLedbatController(mtu, channel.config().getOption(RakChannelOption.RAK_TARGET_QUEUE_DELAY_MS),
+                    channel.config().getOption(RakChannelOption.RAK_CLOCK));
+
+    /**
+     * @param channel channel of the session
+     * @param mtu     maximum datagram size of the session excluding IP and UDP headers
+     * @return new controller instance for the session
+     */
+    RakCongestionController newController(RakChannel channel, int mtu);
+}
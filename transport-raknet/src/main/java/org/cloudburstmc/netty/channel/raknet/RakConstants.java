@@ -71,6 +71,23 @@ public class RakConstants {
     public static final byte FLAG_PACKET_PAIR = (byte) 0b00010000;
     public static final byte FLAG_CONTINUOUS_SEND = (byte) 0b00001000;
     public static final byte FLAG_NEEDS_B_AND_AS = (byte) 0b00000100;
+    /**
+     * Marks a forward error correction parity datagram. Only sent to peers which negotiated {@link #FEC_EXTENSION_MAGIC}.
+     */
+    public static final byte FLAG_PARITY = (byte) 0b00000010;
+
+    /*
+     * Forward error correction
+     */
+    /**
+     * Appended to the connection request and its reply, followed by the parity group size, to negotiate parity datagrams.
+     * Peers not knowing the extension ignore the trailing bytes.
+     */
+    public static final int FEC_EXTENSION_MAGIC = 0x46454331; // FEC1
+    /**
+     * Bytes a parity datagram needs in addition to the largest datagram of its group.
+     */
+    public static final int FEC_PARITY_OVERHEAD = 2;
 
     /*
      * Packet IDs
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.channel.raknet;
+
+import org.cloudburstmc.netty.channel.raknet.packet.RakDatagramPacket;
+
+/**
+ * Delay based {@link RakCongestionController} following the ideas of LEDBAT.
+ * <p>
+ * The queueing delay is estimated as the difference between the RTT samples of the {@link RakSlidingWindow} and the
+ * lowest RTT observed during the last minutes. The congestion window grows while the queueing delay stays below the
+ * target and shrinks proportionally once it rises above, so router buffers are kept short at the expense of bulk throughput.
+ */
+public class RakLedbatController extends RakSlidingWindow {
+
+    private static final double GAIN = 1D;
+    private static final long BASE_DELAY_BUCKET_MS = 60_000;
+    private static final int BASE_DELAY_BUCKETS = 10;
+
+    private final long targetDelay;
+    private final RakClock clock;
+    private final long[] baseDelays = new long[BASE_DELAY_BUCKETS];
+    private int baseDelayIndex;
+    private long baseDelayBucketStart = -1;
+    private boolean slowStart = true;
+    private long lastBackoff;
+    private boolean cwndLimited;
+    private long queueingDelay;
+
+    /**
+     * @param mtu         maximum datagram size
+     * @param targetDelay target queueing delay in milliseconds
+     */
+    public RakLedbatController(int mtu, long targetDelay) {
+        this(mtu, targetDelay, RakClock.MONOTONIC);
+    }
+
+    /**
+     * @param mtu         maximum datagram size
+     * @param targetDelay target queueing delay in milliseconds
+     * @param clock       clock of the session
+     */
+    public RakLedbatController(int mtu, long targetDelay, RakClock clock) {
+        super(mtu);
+        this.targetDelay = Math.max(targetDelay, 1);
+        this.clock = clock;
+    }
+
+    @Override
+    public int getTransmissionBandwidth() {
+        // The window limits us if it is already full or gets filled by the datagrams sent during this flush
+        int bandwidth = super.getTransmissionBandwidth();
+        this.cwndLimited = bandwidth < this.mtu;
+        return bandwidth;
+    }
+
+    @Override
+    public void onReliableSend(RakDatagramPacket datagram) {
+        super.onReliableSend(datagram);
+        if (this.getUnackedBytes() + this.mtu > this.cwnd) {
+            this.cwndLimited = true;
+        }
+    }
+
+    @Override
+    public void onAck(long curTime, RakDatagramPacket datagram, long curSequenceIndex) {
+        long rtt = this.updateRtt(curTime, datagram);
+        this.updateBaseDelay(curTime, rtt);
+
+        long queueingDelay = rtt - this.getBaseDelay();
+        this.queueingDelay = queueingDelay;
+        int ackedBytes = datagram.getSize();
+
+        if (this.slowStart) {
+            if (queueingDelay * 4 >= this.targetDelay * 3) {
+                this.slowStart = false;
+            } else if (this.cwndLimited) {
+                this.cwnd += ackedBytes;
+            }
+        }
+
+        if (!this.slowStart) {
+            double offTarget = (double) (this.targetDelay - queueingDelay) / this.targetDelay;
+            // Do not grow the window beyond what is actually used
+            if (offTarget < 0 || this.cwndLimited) {
+                this.cwnd += GAIN * offTarget * ackedBytes * this.mtu / this.cwnd;
+            }
+        }
+
+        this.cwnd = Math.max(this.cwnd, this.getMinimumCwnd());
+    }
+
+    @Override
+    public void onNak() {
+        this.onLoss();
+    }
+
+    @Override
+    public void onResend(long curSequenceIndex) {
+        this.onLoss();
+    }
+
+    private void onLoss() {
+        // Loss without a rising delay is most likely random loss on a wireless link, not congestion
+        if (!this.slowStart && this.queueingDelay * 2 < this.targetDelay) {
+            return;
+        }
+
+        // Back off at most once per round trip
+        long curTime = this.clock.millis();
+        double rtt = this.getRTT();
+        if (rtt != -1 && curTime - this.lastBackoff < rtt) {
+            return;
+        }
+        this.lastBackoff = curTime;
+        this.slowStart = false;
+        this.cwnd = Math.max(this.cwnd * 0.5D, this.getMinimumCwnd());
+    }
+
+    private void updateBaseDelay(long curTime, long rtt) {
+        if (this.baseDelayBucketStart == -1) {
+            this.baseDelayBucketStart = curTime;
+            this.baseDelays[0] = rtt;
+            for (int i = 1; i < BASE_DELAY_BUCKETS; i++) {
+                this.baseDelays[i] = Long.MAX_VALUE;
+            }
+            return;
+        }
+
+        if (curTime - this.baseDelayBucketStart >= BASE_DELAY_BUCKET_MS) {
+            this.baseDelayBucketStart = curTime;
+            this.baseDelayIndex = (this.baseDelayIndex + 1) % BASE_DELAY_BUCKETS;
+            this.baseDelays[this.baseDelayIndex] = rtt;
+        } else if (rtt < this.baseDelays[this.baseDelayIndex]) {
+            this.baseDelays[this.baseDelayIndex] = rtt;
+        }
+    }
+
+    /**
+     * @return lowest RTT observed during the last minutes in milliseconds
+     */
+    public long getBaseDelay() {
+        long baseDelay = Long.MAX_VALUE;
+        for (long delay : this.baseDelays) {
+            baseDelay = Math.min(baseDelay, delay);
+        }
+        return baseDelay;
+    }
+
+    /**
+     * @return queueing delay of the last RTT sample in milliseconds
+     */
+    public long getQueueingDelay() {
+        return this.queueingDelay;
+    }
+
+    public long getTargetDelay() {
+        return this.targetDelay;
+    }
+
+    private double getMinimumCwnd() {
+        return 2D * this.mtu;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.cloudburstmc.netty.channel.raknet;
+
+import static org.cloudburstmc.netty.channel.raknet.RakConstants.*;
+
+/**
+ * Smoothed RTT estimation and retransmission timeout of the original RakNet, shared by the
+ * {@link RakCongestionController} implementations.
+ */
+final class RakRttEstimator {
+    private double estimatedRTT = -1;
+    private double deviationRTT = -1;
+
+    void update(long rtt) {
+        if (this.estimatedRTT == -1) {
+            this.estimatedRTT = rtt;
+            this.deviationRTT = rtt;
+        } else {
+            double d = 0.05D;
+            double difference = rtt - this.estimatedRTT;
+            this.estimatedRTT += d * difference;
+            this.deviationRTT += d * (Math.abs(difference) - this.deviationRTT);
+        }
+    }
+
+    @SuppressWarnings("ManualMinMaxCalculation")
+    long getRtoForRetransmission() {
+        if (this.estimatedRTT == -1) {
+            return CC_MAXIMUM_THRESHOLD;
+        }
+
+        long threshold = (long) ((2.0D * this.estimatedRTT + 4.0D * this.deviationRTT) + CC_ADDITIONAL_VARIANCE);
+
+        return threshold > CC_MAXIMUM_THRESHOLD ? CC_MAXIMUM_THRESHOLD : threshold;
+    }
+
+    double getRTT() {
+        return this.estimatedRTT;
+    }
+}
@@ -20,13 +20,15 @@ import org.cloudburstmc.netty.channel.raknet.packet.RakDatagramPacket;
 
 import static org.cloudburstmc.netty.channel.raknet.RakConstants.*;
 
-public class RakSlidingWindow {
-    private final int mtu;
-    private double cwnd;
+/**
+ * Default {@link RakCongestionController} implementation modelled after the sliding window of the original RakNet.
+ */
+public class RakSlidingWindow implements RakCongestionController {
+    protected final int mtu;
+    protected double cwnd;
     private double ssThresh;
-    private double estimatedRTT = -1;
+    private final RakRttEstimator rttEstimator = new RakRttEstimator();
     private double lastRTT = -1;
-    private double deviationRTT = -1;
     private long oldestUnsentAck;
     private long nextCongestionControlBlock;
     private boolean backoffThisBlock;
@@ -37,10 +39,12 @@ public class RakSlidingWindow {
         this.cwnd = mtu;
     }
 
+    @Override
     public int getRetransmissionBandwidth() {
         return unackedBytes;
     }
 
+    @Override
     public int getTransmissionBandwidth() {
         if (this.unackedBytes <= this.cwnd) {
             return (int) (this.cwnd - this.unackedBytes);
@@ -49,12 +53,14 @@ public class RakSlidingWindow {
         }
     }
 
+    @Override
     public void onPacketReceived(long curTime) {
         if (this.oldestUnsentAck == 0) {
             this.oldestUnsentAck = curTime;
         }
     }
 
+    @Override
     public void onResend(long curSequenceIndex) {
         if (!this.backoffThisBlock && this.cwnd > this.mtu * 2D) {
             this.ssThresh = this.cwnd * 0.5D;
@@ -69,26 +75,16 @@ public class RakSlidingWindow {
         }
     }
 
+    @Override
     public void onNak() {
         if (!this.backoffThisBlock) {
             this.ssThresh = this.cwnd * 0.75D;
         }
     }
 
+    @Override
     public void onAck(long curTime, RakDatagramPacket datagram, long curSequenceIndex) {
-        long rtt = curTime - datagram.getSendTime();
-        this.lastRTT = rtt;
-        this.unackedBytes -= datagram.getSize();
-
-        if (this.estimatedRTT == -1) {
-            this.estimatedRTT = rtt;
-            this.deviationRTT = rtt;
-        } else {
-            double d = 0.05D;
-            double difference = rtt - this.estimatedRTT;
-            this.estimatedRTT += d * difference;
-            this.deviationRTT += d * (Math.abs(difference) - this.deviationRTT);
-        }
+        this.updateRtt(curTime, datagram);
 
         boolean isNewCongestionControlPeriod = datagram.getSequenceIndex() > this.nextCongestionControlBlock;
 
@@ -108,6 +104,20 @@ public class RakSlidingWindow {
         }
     }
 
+    /**
+     * Updates the RTT estimation and the unacknowledged bytes with an acknowledged datagram.
+     *
+     * @return RTT sample of the datagram
+     */
+    protected long updateRtt(long curTime, RakDatagramPacket datagram) {
+        long rtt = curTime - datagram.getSendTime();
+        this.lastRTT = rtt;
+        this.unackedBytes -= datagram.getSize();
+        this.rttEstimator.update(rtt);
+        return rtt;
+    }
+
+    @Override
     public void onReliableSend(RakDatagramPacket datagram) {
         this.unackedBytes += datagram.getSize();
     }
@@ -116,23 +126,19 @@ public class RakSlidingWindow {
         return this.cwnd <= this.ssThresh || this.ssThresh == 0;
     }
 
+    @Override
     public void onSendAck() {
         this.oldestUnsentAck = 0;
     }
 
-    @SuppressWarnings("ManualMinMaxCalculation")
+    @Override
     public long getRtoForRetransmission() {
-        if (this.estimatedRTT == -1) {
-            return CC_MAXIMUM_THRESHOLD;
-        }
-
-        long threshold = (long) ((2.0D * this.estimatedRTT + 4.0D * this.deviationRTT) + CC_ADDITIONAL_VARIANCE);
-
-        return threshold > CC_MAXIMUM_THRESHOLD ? CC_MAXIMUM_THRESHOLD : threshold;
+        return this.rttEstimator.getRtoForRetransmission();
     }
 
+    @Override
     public double getRTT() {
-        return this.estimatedRTT;
+        return this.rttEstimator.getRTT();
     }
 
     public boolean shouldSendAcks(long curTime) {
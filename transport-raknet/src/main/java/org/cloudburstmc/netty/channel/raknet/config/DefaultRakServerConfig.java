@@ -20,6 +20,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.DefaultChannelConfig;
+import org.cloudburstmc.netty.channel.raknet.RakClock;
 import org.cloudburstmc.netty.channel.raknet.RakConstants;
 import org.cloudburstmc.netty.channel.raknet.RakServerChannel;
 import org.cloudburstmc.netty.util.IpDontFragmentProvider;
@@ -49,6 +50,7 @@ public class DefaultRakServerConfig extends DefaultChannelConfig implements RakS
     private volatile RakServerMetrics metrics;
     private volatile boolean sendCookie;
     private volatile boolean ipDontFragment = false;
+    private volatile RakClock clock = RakClock.CACHED;
 
 
     public DefaultRakServerConfig(RakServerChannel channel) {
@@ -61,7 +63,7 @@ public class DefaultRakServerConfig extends DefaultChannelConfig implements RakS
                 super.getOptions(),
                 RakChannelOption.RAK_GUID, RakChannelOption.RAK_MAX_CHANNELS, RakChannelOption.RAK_MAX_CONNECTIONS, RakChannelOption.RAK_SUPPORTED_PROTOCOLS, RakChannelOption.RAK_UNCONNECTED_MAGIC,
                 RakChannelOption.RAK_ADVERTISEMENT, RakChannelOption.RAK_HANDLE_PING, RakChannelOption.RAK_PACKET_LIMIT, RakChannelOption.RAK_GLOBAL_PACKET_LIMIT, RakChannelOption.RAK_SEND_COOKIE,
-                RakChannelOption.RAK_SERVER_METRICS, RakChannelOption.RAK_IP_DONT_FRAGMENT);
+                RakChannelOption.RAK_SERVER_METRICS, RakChannelOption.RAK_IP_DONT_FRAGMENT, RakChannelOption.RAK_CLOCK);
     }
 
     @SuppressWarnings("unchecked")
@@ -109,6 +111,9 @@ public class DefaultRakServerConfig extends DefaultChannelConfig implements RakS
         if (option == RakChannelOption.RAK_IP_DONT_FRAGMENT) {
             return (T) Boolean.valueOf(this.ipDontFragment);
         }
+        if (option == RakChannelOption.RAK_CLOCK) {
+            return (T) this.getClock();
+        }
         return this.channel.parent().config().getOption(option);
     }
 
@@ -145,6 +150,8 @@ public class DefaultRakServerConfig extends DefaultChannelConfig implements RakS
         } else if (option == RakChannelOption.RAK_IP_DONT_FRAGMENT) {
             this.setIpDontFragment((Boolean) value);
             return (Boolean) value == this.getIpDontFragment();
+        } else if (option == RakChannelOption.RAK_CLOCK) {
+            this.setClock((RakClock) value);
         } else {
             return this.channel.parent().config().setOption(option, value);
         }
@@ -310,4 +317,14 @@ public class DefaultRakServerConfig extends DefaultChannelConfig implements RakS
     public boolean getIpDontFragment() {
         return this.ipDontFragment;
     }
+
+    @Override
+    public void setClock(RakClock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public RakClock getClock() {
+        return this.clock;
+    }
 }
@@ -19,6 +19,10 @@ package org.cloudburstmc.netty.channel.raknet.config;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.DefaultChannelConfig;
+import org.cloudburstmc.netty.channel.raknet.RakAckPolicy;
+import org.cloudburstmc.netty.channel.raknet.RakClock;
+import org.cloudburstmc.netty.channel.raknet.RakCongestionControllerFactory;
+import org.cloudburstmc.netty.channel.raknet.RakPriority;
 
 import java.util.Map;
 
@@ -38,6 +42,23 @@ public class DefaultRakSessionConfig extends DefaultChannelConfig implements Rak
     private volatile long sessionTimeout = SESSION_TIMEOUT_MS;
     private volatile boolean autoFlush = true;
     private volatile int flushInterval = 10;
+    private volatile RakAckPolicy ackPolicy = RakAckPolicy.TICK;
+    private volatile int ackDelayDatagrams = 4;
+    private volatile int ackDelayMillis = 5;
+    private volatile RakCongestionControllerFactory congestionController = RakCongestionControllerFactory.SLIDING_WINDOW;
+    private volatile int targetQueueDelay = 25;
+    private volatile int pacingInterval;
+    private volatile boolean splitComposite;
+    private volatile int maxSplitParts = 8192;
+    private volatile int maxSplitSize = 8 * 1024 * 1024;
+    private volatile int splitBudget = 8 * 1024 * 1024;
+    private volatile int orderingWindow = 8192;
+    private volatile int[] priorityQuanta = {8192, 8192, 4096, 1024};
+    private volatile RakClock clock = RakClock.CACHED;
+    private volatile int fecGroupSize;
+    private volatile int fastRetransmitThreshold = 0;
+    private volatile int nakReorderDatagrams = 0;
+    private volatile int nakReorderDelay = 0;
 
     public DefaultRakSessionConfig(Channel channel) {
         super(channel);
@@ -48,7 +69,14 @@ public class DefaultRakSessionConfig extends DefaultChannelConfig implements Rak
         return this.getOptions(
                 super.getOptions(),
                 RakChannelOption.RAK_GUID, RakChannelOption.RAK_MAX_CHANNELS, RakChannelOption.RAK_MTU, RakChannelOption.RAK_PROTOCOL_VERSION, RakChannelOption.RAK_ORDERING_CHANNELS,
-                RakChannelOption.RAK_METRICS, RakChannelOption.RAK_SESSION_TIMEOUT, RakChannelOption.RAK_AUTO_FLUSH, RakChannelOption.RAK_FLUSH_INTERVAL);
+                RakChannelOption.RAK_METRICS, RakChannelOption.RAK_SESSION_TIMEOUT, RakChannelOption.RAK_AUTO_FLUSH, RakChannelOption.RAK_FLUSH_INTERVAL,
+                RakChannelOption.RAK_ACK_POLICY, RakChannelOption.RAK_ACK_DELAY_DATAGRAMS, RakChannelOption.RAK_ACK_DELAY_MS,
+                RakChannelOption.RAK_CONGESTION_CONTROLLER, RakChannelOption.RAK_TARGET_QUEUE_DELAY_MS,
+                RakChannelOption.RAK_PACING_INTERVAL_MS, RakChannelOption.RAK_SPLIT_COMPOSITE,
+                RakChannelOption.RAK_MAX_SPLIT_PARTS, RakChannelOption.RAK_MAX_SPLIT_SIZE, RakChannelOption.RAK_SPLIT_BUDGET,
+                RakChannelOption.RAK_ORDERING_WINDOW, RakChannelOption.RAK_PRIORITY_QUANTA, RakChannelOption.RAK_CLOCK,
+                RakChannelOption.RAK_FEC_GROUP_SIZE, RakChannelOption.RAK_FAST_RETRANSMIT_THRESHOLD,
+                RakChannelOption.RAK_NAK_REORDER_DATAGRAMS, RakChannelOption.RAK_NAK_REORDER_DELAY_MS);
     }
 
     @SuppressWarnings("unchecked")
@@ -78,6 +106,57 @@ public class DefaultRakSessionConfig extends DefaultChannelConfig implements Rak
         if (option == RakChannelOption.RAK_FLUSH_INTERVAL) {
             return (T) Integer.valueOf(this.getFlushInterval());
         }
+        if (option == RakChannelOption.RAK_ACK_POLICY) {
+            return (T) this.getAckPolicy();
+        }
+        if (option == RakChannelOption.RAK_ACK_DELAY_DATAGRAMS) {
+            return (T) Integer.valueOf(this.getAckDelayDatagrams());
+        }
+        if (option == RakChannelOption.RAK_ACK_DELAY_MS) {
+            return (T) Integer.valueOf(this.getAckDelayMillis());
+        }
+        if (option == RakChannelOption.RAK_CONGESTION_CONTROLLER) {
+            return (T) this.getCongestionController();
+        }
+        if (option == RakChannelOption.RAK_TARGET_QUEUE_DELAY_MS) {
+            return (T) Integer.valueOf(this.getTargetQueueDelay());
+        }
+        if (option == RakChannelOption.RAK_PACING_INTERVAL_MS) {
+            return (T) Integer.valueOf(this.getPacingInterval());
+        }
+        if (option == RakChannelOption.RAK_SPLIT_COMPOSITE) {
+            return (T) Boolean.valueOf(this.isSplitComposite());
+        }
+        if (option == RakChannelOption.RAK_MAX_SPLIT_PARTS) {
+            return (T) Integer.valueOf(this.getMaxSplitParts());
+        }
+        if (option == RakChannelOption.RAK_MAX_SPLIT_SIZE) {
+            return (T) Integer.valueOf(this.getMaxSplitSize());
+        }
+        if (option == RakChannelOption.RAK_SPLIT_BUDGET) {
+            return (T) Integer.valueOf(this.getSplitBudget());
+        }
+        if (option == RakChannelOption.RAK_ORDERING_WINDOW) {
+            return (T) Integer.valueOf(this.getOrderingWindow());
+        }
+        if (option == RakChannelOption.RAK_PRIORITY_QUANTA) {
+            return (T) this.getPriorityQuanta();
+        }
+        if (option == RakChannelOption.RAK_CLOCK) {
+            return (T) this.getClock();
+        }
+        if (option == RakChannelOption.RAK_FEC_GROUP_SIZE) {
+            return (T) Integer.valueOf(this.getFecGroupSize());
+        }
+        if (option == RakChannelOption.RAK_FAST_RETRANSMIT_THRESHOLD) {
+            return (T) Integer.valueOf(this.getFastRetransmitThreshold());
+        }
+        if (option == RakChannelOption.RAK_NAK_REORDER_DATAGRAMS) {
+            return (T) Integer.valueOf(this.getNakReorderDatagrams());
+        }
+        if (option == RakChannelOption.RAK_NAK_REORDER_DELAY_MS) {
+            return (T) Integer.valueOf(this.getNakReorderDelay());
+        }
         return this.channel.parent().config().getOption(option);
     }
 
@@ -102,6 +181,40 @@ public class DefaultRakSessionConfig extends DefaultChannelConfig implements Rak
             this.setAutoFlush((Boolean) value);
         } else if (option == RakChannelOption.RAK_FLUSH_INTERVAL) {
             this.setFlushInterval((Integer) value);
+        } else if (option == RakChannelOption.RAK_ACK_POLICY) {
+            this.setAckPolicy((RakAckPolicy) value);
+        } else if (option == RakChannelOption.RAK_ACK_DELAY_DATAGRAMS) {
+            this.setAckDelayDatagrams((Integer) value);
+        } else if (option == RakChannelOption.RAK_ACK_DELAY_MS) {
+            this.setAckDelayMillis((Integer) value);
+        } else if (option == RakChannelOption.RAK_CONGESTION_CONTROLLER) {
+            this.setCongestionController((RakCongestionControllerFactory) value);
+        } else if (option == RakChannelOption.RAK_TARGET_QUEUE_DELAY_MS) {
+            this.setTargetQueueDelay((Integer) value);
+        } else if (option == RakChannelOption.RAK_PACING_INTERVAL_MS) {
+            this.setPacingInterval((Integer) value);
+        } else if (option == RakChannelOption.RAK_SPLIT_COMPOSITE) {
+            this.setSplitComposite((Boolean) value);
+        } else if (option == RakChannelOption.RAK_MAX_SPLIT_PARTS) {
+            this.setMaxSplitParts((Integer) value);
+        } else if (option == RakChannelOption.RAK_MAX_SPLIT_SIZE) {
+            this.setMaxSplitSize((Integer) value);
+        } else if (option == RakChannelOption.RAK_SPLIT_BUDGET) {
+            this.setSplitBudget((Integer) value);
+        } else if (option == RakChannelOption.RAK_ORDERING_WINDOW) {
+            this.setOrderingWindow((Integer) value);
+        } else if (option == RakChannelOption.RAK_PRIORITY_QUANTA) {
+            this.setPriorityQuanta((int[]) value);
+        } else if (option == RakChannelOption.RAK_CLOCK) {
+            this.setClock((RakClock) value);
+        } else if (option == RakChannelOption.RAK_FEC_GROUP_SIZE) {
+            this.setFecGroupSize((Integer) value);
+        } else if (option == RakChannelOption.RAK_FAST_RETRANSMIT_THRESHOLD) {
+            this.setFastRetransmitThreshold((Integer) value);
+        } else if (option == RakChannelOption.RAK_NAK_REORDER_DATAGRAMS) {
+            this.setNakReorderDatagrams((Integer) value);
+        } else if (option == RakChannelOption.RAK_NAK_REORDER_DELAY_MS) {
+            this.setNakReorderDelay((Integer) value);
         } else {
             return this.channel.parent().config().setOption(option, value);
         }
@@ -194,4 +307,211 @@ public class DefaultRakSessionConfig extends DefaultChannelConfig implements Rak
     public void setFlushInterval(int flushInterval) {
         this.flushInterval = flushInterval;
     }
+
+    @Override
+    public RakAckPolicy getAckPolicy() {
+        return this.ackPolicy;
+    }
+
+    @Override
+    public RakChannelConfig setAckPolicy(RakAckPolicy ackPolicy) {
+        this.ackPolicy = ackPolicy;
+        return this;
+    }
+
+    @Override
+    public int getAckDelayDatagrams() {
+        return this.ackDelayDatagrams;
+    }
+
+    @Override
+    public RakChannelConfig setAckDelayDatagrams(int ackDelayDatagrams) {
+        this.ackDelayDatagrams = ackDelayDatagrams;
+        return this;
+    }
+
+    @Override
+    public int getAckDelayMillis() {
+        return this.ackDelayMillis;
+    }
+
+    @Override
+    public RakChannelConfig setAckDelayMillis(int ackDelayMillis) {
+        this.ackDelayMillis = ackDelayMillis;
+        return this;
+    }
+
+    @Override
+    public RakCongestionControllerFactory getCongestionController() {
+        return this.congestionController;
+    }
+
+    @Override
+    public RakChannelConfig setCongestionController(RakCongestionControllerFactory congestionController) {
+        this.congestionController = congestionController;
+        return this;
+    }
+
+    @Override
+    public int getTargetQueueDelay() {
+        return this.targetQueueDelay;
+    }
+
+    @Override
+    public RakChannelConfig setTargetQueueDelay(int targetQueueDelay) {
+        this.targetQueueDelay = targetQueueDelay;
+        return this;
+    }
+
+    @Override
+    public int getPacingInterval() {
+        return this.pacingInterval;
+    }
+
+    @Override
+    public RakChannelConfig setPacingInterval(int pacingInterval) {
+        this.pacingInterval = pacingInterval;
+        return this;
+    }
+
+    @Override
+    public boolean isSplitComposite() {
+        return this.splitComposite;
+    }
+
+    @Override
+    public RakChannelConfig setSplitComposite(boolean splitComposite) {
+        this.splitComposite = splitComposite;
+        return this;
+    }
+
+    @Override
+    public int getMaxSplitParts() {
+        return this.maxSplitParts;
+    }
+
+    @Override
+    public RakChannelConfig setMaxSplitParts(int maxSplitParts) {
+        this.maxSplitParts = maxSplitParts;
+        return this;
+    }
+
+    @Override
+    public int getMaxSplitSize() {
+        return this.maxSplitSize;
+    }
+
+    @Override
+    public RakChannelConfig setMaxSplitSize(int maxSplitSize) {
+        this.maxSplitSize = maxSplitSize;
+        return this;
+    }
+
+    @Override
+    public int getSplitBudget() {
+        return this.splitBudget;
+    }
+
+    @Override
+    public RakChannelConfig setSplitBudget(int splitBudget) {
+        this.splitBudget = splitBudget;
+        return this;
+    }
+
+    @Override
+    public int getOrderingWindow() {
+        return this.orderingWindow;
+    }
+
+    @Override
+    public RakChannelConfig setOrderingWindow(int orderingWindow) {
+        this.orderingWindow = orderingWindow;
+        return this;
+    }
+
+    @Override
+    public int[] getPriorityQuanta() {
+        return this.priorityQuanta.clone();
+    }
+
+    @Override
+    public RakChannelConfig setPriorityQuanta(int[] priorityQuanta) {
+        if (priorityQuanta.length != RakPriority.values().length) {
+            throw new IllegalArgumentException("Expected a quantum for each of the " + RakPriority.values().length + " priorities");
+        }
+        for (int quantum : priorityQuanta) {
+            if (quantum <= 0) {
+                throw new IllegalArgumentException("Quantum must be positive: " + quantum);
+            }
+        }
+        this.priorityQuanta = priorityQuanta.clone();
+        return this;
+    }
+
+    @Override
+    public RakClock getClock() {
+        return this.clock;
+    }
+
+    @Override
+    public RakChannelConfig setClock(RakClock clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    @Override
+    public int getFecGroupSize() {
+        return this.fecGroupSize;
+    }
+
+    @Override
+    public RakChannelConfig setFecGroupSize(int fecGroupSize) {
+        if (fecGroupSize != 0 && (fecGroupSize < 2 || fecGroupSize > 64)) {
+            throw new IllegalArgumentException("FEC group size must be 0 or between 2 and 64: " + fecGroupSize);
+        }
+        this.fecGroupSize = fecGroupSize;
+        return this;
+    }
+
+    @Override
+    public int getFastRetransmitThreshold() {
+        return this.fastRetransmitThreshold;
+    }
+
+    @Override
+    public RakChannelConfig setFastRetransmitThreshold(int fastRetransmitThreshold) {
+        if (fastRetransmitThreshold < 0) {
+            throw new IllegalArgumentException("Fast retransmit threshold must be positive or 0: " + fastRetransmitThreshold);
+        }
+        this.fastRetransmitThreshold = fastRetransmitThreshold;
+        return this;
+    }
+
+    @Override
+    public int getNakReorderDatagrams() {
+        return this.nakReorderDatagrams;
+    }
+
+    @Override
+    public RakChannelConfig setNakReorderDatagrams(int nakReorderDatagrams) {
+        if (nakReorderDatagrams < 0) {
+            throw new IllegalArgumentException("NAK reorder datagrams must be positive or 0: " + nakReorderDatagrams);
+        }
+        this.nakReorderDatagrams = nakReorderDatagrams;
+        return this;
+    }
+
+    @Override
+    public int getNakReorderDelay() {
+        return this.nakReorderDelay;
+    }
+
+    @Override
+    public RakChannelConfig setNakReorderDelay(int nakReorderDelay) {
+        if (nakReorderDelay < 0) {
+            throw new IllegalArgumentException("NAK reorder delay must be positive or 0: " + nakReorderDelay);
+        }
+        this.nakReorderDelay = nakReorderDelay;
+        return this;
+    }
 }
@@ -17,6 +17,9 @@
 package org.cloudburstmc.netty.channel.raknet.config;
 
 import io.netty.channel.ChannelConfig;
+import org.cloudburstmc.netty.channel.raknet.RakAckPolicy;
+import org.cloudburstmc.netty.channel.raknet.RakClock;
+import org.cloudburstmc.netty.channel.raknet.RakCongestionControllerFactory;
 
 public interface RakChannelConfig extends ChannelConfig {
 
@@ -51,4 +54,87 @@ public interface RakChannelConfig extends ChannelConfig {
     int getFlushInterval();
 
     void setFlushInterval(int intervalMillis);
+
+    RakAckPolicy getAckPolicy();
+
+    RakChannelConfig setAckPolicy(RakAckPolicy ackPolicy);
+
+    int getAckDelayDatagrams();
+
+    RakChannelConfig setAckDelayDatagrams(int ackDelayDatagrams);
+
+    int getAckDelayMillis();
+
+    RakChannelConfig setAckDelayMillis(int ackDelayMillis);
+
+    RakCongestionControllerFactory getCongestionController();
+
+    RakChannelConfig setCongestionController(RakCongestionControllerFactory congestionController);
+
+    int getTargetQueueDelay();
+
+    RakChannelConfig setTargetQueueDelay(int targetQueueDelay);
+
+    int getPacingInterval();
+
+    RakChannelConfig setPacingInterval(int pacingInterval);
+
+    boolean isSplitComposite();
+
+    RakChannelConfig setSplitComposite(boolean splitComposite);
+
+    int getMaxSplitParts();
+
+    RakChannelConfig setMaxSplitParts(int maxSplitParts);
+
+    int getMaxSplitSize();
+
+    RakChannelConfig setMaxSplitSize(int maxSplitSize);
+
+    int getSplitBudget();
+
+    RakChannelConfig setSplitBudget(int splitBudget);
+
+    int getOrderingWindow();
+
+    RakChannelConfig setOrderingWindow(int orderingWindow);
+
+    int[] getPriorityQuanta();
+
+    RakChannelConfig setPriorityQuanta(int[] priorityQuanta);
+
+    RakClock getClock();
+
+    RakChannelConfig setClock(RakClock clock);
+
+    int getFecGroupSize();
+
+    RakChannelConfig setFecGroupSize(int fecGroupSize);
+
+    int getFastRetransmitThreshold();
+
+    /**
+     * Fast retransmission is opt-in, it is disabled by default.
+     *
+     * @see RakChannelOption#RAK_FAST_RETRANSMIT_THRESHOLD
+     */
+    RakChannelConfig setFastRetransmitThreshold(int fastRetransmitThreshold);
+
+    int getNakReorderDatagrams();
+
+    /**
+     * Holding back NAKs for reordered datagrams is opt-in, gaps are reported immediately by default.
+     *
+     * @see RakChannelOption#RAK_NAK_REORDER_DATAGRAMS
+     */
+    RakChannelConfig setNakReorderDatagrams(int nakReorderDatagrams);
+
+    int getNakReorderDelay();
+
+    /**
+     * Opt-in like {@link #setNakReorderDatagrams(int)}, 0 by default.
+     *
+     * @see RakChannelOption#RAK_NAK_REORDER_DELAY_MS
+     */
+    RakChannelConfig setNakReorderDelay(int nakReorderDelay);
 }
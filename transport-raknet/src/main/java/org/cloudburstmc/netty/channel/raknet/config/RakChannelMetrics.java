@@ -53,6 +53,9 @@ public interface RakChannelMetrics {
     default void nackIn(int count) {
     }
 
+    default void nackSuppressed(int count) {
+    }
+
     default void stateChange(RakState state) {
     }
 }
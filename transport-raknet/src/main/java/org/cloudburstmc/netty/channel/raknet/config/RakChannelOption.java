@@ -18,6 +18,9 @@ package org.cloudburstmc.netty.channel.raknet.config;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelOption;
+import org.cloudburstmc.netty.channel.raknet.RakAckPolicy;
+import org.cloudburstmc.netty.channel.raknet.RakClock;
+import org.cloudburstmc.netty.channel.raknet.RakCongestionControllerFactory;
 
 public class RakChannelOption<T> extends ChannelOption<T> {
 
@@ -189,6 +192,141 @@ public class RakChannelOption<T> extends ChannelOption<T> {
     public static final ChannelOption<Integer> RAK_TIME_BETWEEN_SEND_CONNECTION_ATTEMPTS_MS =
             valueOf(RakChannelOption.class, "RAK_TIME_BETWEEN_SEND_CONNECTION_ATTEMPTS_MS");
 
+    /**
+     * When received datagrams are acknowledged.
+     * Default is {@link RakAckPolicy#TICK}.
+     */
+    public static final ChannelOption<RakAckPolicy> RAK_ACK_POLICY =
+            valueOf(RakChannelOption.class, "RAK_ACK_POLICY");
+
+    /**
+     * Number of received datagrams after which acknowledgements are sent when using {@link RakAckPolicy#DELAYED}.
+     * Default is 4 datagrams.
+     */
+    public static final ChannelOption<Integer> RAK_ACK_DELAY_DATAGRAMS =
+            valueOf(RakChannelOption.class, "RAK_ACK_DELAY_DATAGRAMS");
+
+    /**
+     * Time in milliseconds after which acknowledgements are sent when using {@link RakAckPolicy#DELAYED}.
+     * Default is 5ms.
+     */
+    public static final ChannelOption<Integer> RAK_ACK_DELAY_MS =
+            valueOf(RakChannelOption.class, "RAK_ACK_DELAY_MS");
+
+    /**
+     * Factory of the congestion controller used by each session.
+     * Default is {@link RakCongestionControllerFactory#SLIDING_WINDOW}.
+     */
+    public static final ChannelOption<RakCongestionControllerFactory> RAK_CONGESTION_CONTROLLER =
+            valueOf(RakChannelOption.class, "RAK_CONGESTION_CONTROLLER");
+
+    /**
+     * Target queueing delay in milliseconds used by {@link RakCongestionControllerFactory#LEDBAT}.
+     * Default is 25ms.
+     */
+    public static final ChannelOption<Integer> RAK_TARGET_QUEUE_DELAY_MS =
+            valueOf(RakChannelOption.class, "RAK_TARGET_QUEUE_DELAY_MS");
+
+    /**
+     * Interval in milliseconds in which new datagrams are paced between two flushes, or 0 to send them in one burst per flush.
+     * Datagrams are paced at {@link org.cloudburstmc.netty.channel.raknet.RakCongestionController#getPacingRate()} or spread
+     * evenly across the flush interval. Controllers which pace by themselves, such as BBR, are only ticked at this interval.
+     * Must be lower than RAK_FLUSH_INTERVAL to have any effect.
+     * Default is 0 (disabled).
+     */
+    public static final ChannelOption<Integer> RAK_PACING_INTERVAL_MS =
+            valueOf(RakChannelOption.class, "RAK_PACING_INTERVAL_MS");
+
+    /**
+     * Whether split packets are reassembled into a composite buffer of their parts instead of being copied into one buffer.
+     * Consumers which need contiguous memory can use {@link org.cloudburstmc.netty.util.RakUtils#consolidate}.
+     * Default is false.
+     */
+    public static final ChannelOption<Boolean> RAK_SPLIT_COMPOSITE =
+            valueOf(RakChannelOption.class, "RAK_SPLIT_COMPOSITE");
+
+    /**
+     * Maximum number of parts a split packet may consist of. Sessions announcing more parts are disconnected.
+     * Default is 8192 parts.
+     */
+    public static final ChannelOption<Integer> RAK_MAX_SPLIT_PARTS =
+            valueOf(RakChannelOption.class, "RAK_MAX_SPLIT_PARTS");
+
+    /**
+     * Maximum size in bytes of a single reassembled split packet. Sessions sending larger packets are disconnected.
+     * Default is 8MB.
+     */
+    public static final ChannelOption<Integer> RAK_MAX_SPLIT_SIZE =
+            valueOf(RakChannelOption.class, "RAK_MAX_SPLIT_SIZE");
+
+    /**
+     * Maximum amount of bytes each session may buffer for all split packets which are not fully received yet.
+     * Sessions exceeding this limit are disconnected.
+     * Default is 8MB.
+     */
+    public static final ChannelOption<Integer> RAK_SPLIT_BUDGET =
+            valueOf(RakChannelOption.class, "RAK_SPLIT_BUDGET");
+
+    /**
+     * Maximum number of ordering indexes an ordered packet may be ahead of the next expected one on its ordering channel.
+     * Sessions sending packets further ahead are disconnected.
+     * Default is 8192.
+     */
+    public static final ChannelOption<Integer> RAK_ORDERING_WINDOW =
+            valueOf(RakChannelOption.class, "RAK_ORDERING_WINDOW");
+
+    /**
+     * Bytes each {@link org.cloudburstmc.netty.channel.raknet.RakPriority} may send per deficit round-robin round,
+     * indexed by the priority ordinal. Under saturation each priority gets a share of the bandwidth proportional to its quantum.
+     * The entry of IMMEDIATE is ignored as such messages are never queued.
+     * Default is 8192 for HIGH, 4096 for NORMAL and 1024 for LOW.
+     */
+    public static final ChannelOption<int[]> RAK_PRIORITY_QUANTA =
+            valueOf(RakChannelOption.class, "RAK_PRIORITY_QUANTA");
+
+    /**
+     * Time source used by sessions and the rate limiter of the server. Server child sessions use the clock of the server,
+     * unless it is overridden for a session before its pipeline is set up.
+     * Default is {@link RakClock#CACHED}.
+     */
+    public static final ChannelOption<RakClock> RAK_CLOCK =
+            valueOf(RakChannelOption.class, "RAK_CLOCK");
+
+    /**
+     * Number of datagrams protected by one XOR parity datagram, which lets the receiver rebuild a single lost datagram
+     * of the group without a retransmission. Parity is only used if both peers run this library and enable it,
+     * the smaller group size of both is used. If set, datagrams leave room for the parity header from the start of the session,
+     * even if the remote peer does not support parity. 0 disables parity datagrams, otherwise the value must be between 2 and 64.
+     * Default is 0.
+     */
+    public static final ChannelOption<Integer> RAK_FEC_GROUP_SIZE =
+            valueOf(RakChannelOption.class, "RAK_FEC_GROUP_SIZE");
+
+    /**
+     * Number of later datagrams which have to be acknowledged before an unacknowledged datagram is considered lost
+     * and resent without waiting for a NAK or the retransmission timeout. 0 disables fast retransmission, 3 is a common value.
+     * Default is 0 (disabled).
+     */
+    public static final ChannelOption<Integer> RAK_FAST_RETRANSMIT_THRESHOLD =
+            valueOf(RakChannelOption.class, "RAK_FAST_RETRANSMIT_THRESHOLD");
+
+    /**
+     * Number of later datagrams which have to arrive before a missing datagram is reported with a NAK.
+     * Gaps which are filled by reordered datagrams before that are not reported at all.
+     * 0 disables this limit, if {@link #RAK_NAK_REORDER_DELAY_MS} is 0 as well, gaps are reported immediately.
+     * Default is 0, gaps are reported immediately unless this is opted into.
+     */
+    public static final ChannelOption<Integer> RAK_NAK_REORDER_DATAGRAMS =
+            valueOf(RakChannelOption.class, "RAK_NAK_REORDER_DATAGRAMS");
+
+    /**
+     * Time in milliseconds after which a missing datagram is reported with a NAK, even if not enough later datagrams
+     * have arrived for {@link #RAK_NAK_REORDER_DATAGRAMS}. 0 disables this limit.
+     * Default is 0ms.
+     */
+    public static final ChannelOption<Integer> RAK_NAK_REORDER_DELAY_MS =
+            valueOf(RakChannelOption.class, "RAK_NAK_REORDER_DELAY_MS");
+
     @SuppressWarnings("deprecation")
     protected RakChannelOption() {
         super(null);
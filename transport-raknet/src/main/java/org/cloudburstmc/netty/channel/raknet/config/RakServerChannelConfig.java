@@ -18,6 +18,7 @@ package org.cloudburstmc.netty.channel.raknet.config;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelConfig;
+import org.cloudburstmc.netty.channel.raknet.RakClock;
 
 public interface RakServerChannelConfig extends ChannelConfig {
 
@@ -76,4 +77,8 @@ public interface RakServerChannelConfig extends ChannelConfig {
     void setIpDontFragment(boolean ipDontFragment);
 
     boolean getIpDontFragment();
+
+    void setClock(RakClock clock);
+
+    RakClock getClock();
 }
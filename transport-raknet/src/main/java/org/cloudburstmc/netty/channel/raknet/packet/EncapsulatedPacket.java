@@ -18,7 +18,6 @@ package org.cloudburstmc.netty.channel.raknet.packet;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
-import io.netty.buffer.CompositeByteBuf;
 import io.netty.util.AbstractReferenceCounted;
 import io.netty.util.internal.ObjectPool;
 import io.netty.util.ReferenceCountUtil;
@@ -41,6 +40,7 @@ public class EncapsulatedPacket extends AbstractReferenceCounted {
     private int partIndex;
     private ByteBuf buffer;
     private boolean needsBAS;
+    private int size;
 
     public static EncapsulatedPacket newInstance() {
         return RECYCLER.get();
@@ -50,41 +50,42 @@ public class EncapsulatedPacket extends AbstractReferenceCounted {
         this.handle = handle;
     }
 
-    public void encode(CompositeByteBuf buffer) {
+    /**
+     * Writes the header and payload of this packet to the given buffer. Exactly {@link #getSize()} bytes are written.
+     */
+    public void encode(ByteBuf buffer) {
         RakReliability reliability = this.reliability;
-        ByteBuf header = buffer.alloc().ioBuffer(3 + reliability.getSize() + (this.split ? 10 : 0));
 
-        int flags = this.reliability.ordinal() << 5;
+        int flags = reliability.ordinal() << 5;
         if (this.split) {
             flags |= RakConstants.FLAG_PACKET_PAIR;
         }
         if (needsBAS){
             flags |= RakConstants.FLAG_NEEDS_B_AND_AS;
         }
-        header.writeByte(flags);
-        header.writeShort(this.buffer.readableBytes() << 3); // size
+        buffer.writeByte(flags);
+        buffer.writeShort(this.buffer.readableBytes() << 3); // size
 
         if (reliability.isReliable()) {
-            header.writeMediumLE(this.reliabilityIndex);
+            buffer.writeMediumLE(this.reliabilityIndex);
         }
 
         if (reliability.isSequenced()) {
-            header.writeMediumLE(this.sequenceIndex);
+            buffer.writeMediumLE(this.sequenceIndex);
         }
 
         if (reliability.isOrdered() || reliability.isSequenced()) {
-            header.writeMediumLE(this.orderingIndex);
-            header.writeByte(this.orderingChannel);
+            buffer.writeMediumLE(this.orderingIndex);
+            buffer.writeByte(this.orderingChannel);
         }
 
         if (this.split) {
-            header.writeInt(this.partCount);
-            header.writeShort(this.partId);
-            header.writeInt(this.partIndex);
+            buffer.writeInt(this.partCount);
+            buffer.writeShort(this.partId);
+            buffer.writeInt(this.partIndex);
         }
 
-        buffer.addComponent(true, header);
-        buffer.addComponent(true, this.buffer.retain());
+        buffer.writeBytes(this.buffer, this.buffer.readerIndex(), this.buffer.readableBytes());
     }
 
     public void decode(ByteBuf buf) {
@@ -115,11 +116,33 @@ public class EncapsulatedPacket extends AbstractReferenceCounted {
 
         // Slice the buffer to use less memory
         this.buffer = buf.readRetainedSlice(size);
+        this.updateSize();
     }
 
+    public int getHeaderSize() {
+        return 3 + this.reliability.getSize() + (this.split ? 10 : 0);
+    }
+
+    /**
+     * @return encoded size of this packet including its header
+     */
     public int getSize() {
-        // Include back of the envelope calculation
-        return 3 + this.reliability.getSize() + (this.split ? 10 : 0) + this.buffer.readableBytes();
+        return this.size;
+    }
+
+    /**
+     * Caches the encoded size, must be called whenever reliability, split or buffer change.
+     * The readable bytes of the buffer are not expected to change afterwards.
+     */
+    private void updateSize() {
+        int size = 3 + (this.split ? 10 : 0);
+        if (this.reliability != null) {
+            size += this.reliability.getSize();
+        }
+        if (this.buffer != null) {
+            size += this.buffer.readableBytes();
+        }
+        this.size = size;
     }
 
     public EncapsulatedPacket fromSplit(ByteBuf reassembled) {
@@ -130,6 +153,7 @@ public class EncapsulatedPacket extends AbstractReferenceCounted {
         packet.orderingIndex = this.orderingIndex;
         packet.orderingChannel = this.orderingChannel;
         packet.buffer = reassembled;
+        packet.updateSize();
         return packet;
     }
 
@@ -147,6 +171,7 @@ public class EncapsulatedPacket extends AbstractReferenceCounted {
         this.partId = 0;
         this.partIndex = 0;
         this.buffer = null;
+        this.size = 0;
         setRefCnt(1);
         this.handle.recycle(this);
     }
@@ -168,6 +193,7 @@ public class EncapsulatedPacket extends AbstractReferenceCounted {
 
     public void setReliability(RakReliability reliability) {
         this.reliability = reliability;
+        this.updateSize();
     }
 
     public int getReliabilityIndex() {
@@ -208,6 +234,7 @@ public class EncapsulatedPacket extends AbstractReferenceCounted {
 
     public void setSplit(boolean split) {
         this.split = split;
+        this.updateSize();
     }
 
     public int getPartCount() {
@@ -240,6 +267,7 @@ public class EncapsulatedPacket extends AbstractReferenceCounted {
 
     public void setBuffer(ByteBuf buffer) {
         this.buffer = buffer;
+        this.updateSize();
     }
 
     public boolean isNeedsBAS() {
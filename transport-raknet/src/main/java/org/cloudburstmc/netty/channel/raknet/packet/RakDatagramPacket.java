@@ -16,7 +16,9 @@
 
 package org.cloudburstmc.netty.channel.raknet.packet;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.internal.ObjectPool;
 
 import java.util.ArrayList;
@@ -34,6 +36,10 @@ public class RakDatagramPacket extends AbstractReferenceCounted {
     private long sendTime;
     private long nextSend;
     private int sequenceIndex = -1;
+    private int retransmissionIndex = -1;
+    private boolean retransmitted;
+    private ByteBuf encodedBody;
+    private int size = RAKNET_DATAGRAM_HEADER_SIZE;
 
     public static RakDatagramPacket newInstance() {
         return RECYCLER.get();
@@ -64,17 +70,25 @@ public class RakDatagramPacket extends AbstractReferenceCounted {
     }
 
     public boolean tryAddPacket(EncapsulatedPacket packet, int mtu) {
-        if (this.getSize() + packet.getSize() > mtu - RAKNET_DATAGRAM_HEADER_SIZE) {
+        if (this.size + packet.getSize() > mtu - RAKNET_DATAGRAM_HEADER_SIZE) {
             return false;
         }
 
-        this.packets.add(packet);
+        this.addPacket(packet);
         if (packet.isSplit() && packet.getPartIndex() > 0) {            
             flags |= FLAG_CONTINUOUS_SEND;
         }
         return true;
     }
 
+    /**
+     * Adds a packet to this datagram without checking the MTU.
+     */
+    public void addPacket(EncapsulatedPacket packet) {
+        this.packets.add(packet);
+        this.size += packet.getSize();
+    }
+
     @Override
     public boolean release() {
         return super.release();
@@ -86,22 +100,27 @@ public class RakDatagramPacket extends AbstractReferenceCounted {
             packet.release();
         }
         this.packets.clear();
+        this.size = RAKNET_DATAGRAM_HEADER_SIZE;
+        ReferenceCountUtil.release(this.encodedBody);
+        this.encodedBody = null;
         this.flags = FLAG_VALID;
         this.sendTime = 0;
         this.nextSend = 0;
         this.sequenceIndex = -1;
+        this.retransmissionIndex = -1;
+        this.retransmitted = false;
         setRefCnt(1);
         this.handle.recycle(this);
     }
 
     public int getSize() {
-        int size = RAKNET_DATAGRAM_HEADER_SIZE;
-        for (EncapsulatedPacket packet : this.packets) {
-            size += packet.getSize();
-        }
-        return size;
+        return this.size;
     }
 
+    /**
+     * Packets must be added through {@link #addPacket(EncapsulatedPacket)} or {@link #tryAddPacket(EncapsulatedPacket, int)}
+     * so the size of the datagram is kept up to date.
+     */
     public List<EncapsulatedPacket> getPackets() {
         return this.packets;
     }
@@ -142,6 +161,43 @@ public class RakDatagramPacket extends AbstractReferenceCounted {
         this.sequenceIndex = sequenceIndex;
     }
 
+    /**
+     * Position of this datagram in the {@link org.cloudburstmc.netty.util.RetransmissionQueue} of its session,
+     * or -1 if it is not queued for retransmission.
+     */
+    public int getRetransmissionIndex() {
+        return this.retransmissionIndex;
+    }
+
+    public void setRetransmissionIndex(int retransmissionIndex) {
+        this.retransmissionIndex = retransmissionIndex;
+    }
+
+    /**
+     * Whether this datagram was sent more than once. The send time of a retransmitted datagram is the time of its
+     * first transmission.
+     */
+    public boolean isRetransmitted() {
+        return this.retransmitted;
+    }
+
+    public void setRetransmitted(boolean retransmitted) {
+        this.retransmitted = retransmitted;
+    }
+
+    /**
+     * Encoded encapsulated packets of this datagram without the datagram header, kept so resending the datagram
+     * does not have to encode all packets again. Only set for datagrams which may be resent.
+     */
+    public ByteBuf getEncodedBody() {
+        return this.encodedBody;
+    }
+
+    public void setEncodedBody(ByteBuf encodedBody) {
+        ReferenceCountUtil.release(this.encodedBody);
+        this.encodedBody = encodedBody;
+    }
+
     @Override
     public String toString() {
         return "RakDatagramPacket{" +
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.channel.raknet.packet;
+
+import io.netty.util.AbstractReferenceCounted;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Batch of {@link RakMessage}s written to a RakNet channel at once.
+ * <p>
+ * The batch is queued in a single pass and completes a single promise.
+ * Releasing the batch releases all of its messages.
+ */
+public final class RakMessageBatch extends AbstractReferenceCounted {
+    private final List<RakMessage> messages;
+
+    public RakMessageBatch() {
+        this.messages = new ArrayList<>();
+    }
+
+    public RakMessageBatch(int initialCapacity) {
+        this.messages = new ArrayList<>(initialCapacity);
+    }
+
+    public RakMessageBatch(RakMessage... messages) {
+        this.messages = new ArrayList<>(Arrays.asList(messages));
+    }
+
+    public RakMessageBatch(List<RakMessage> messages) {
+        this.messages = new ArrayList<>(messages);
+    }
+
+    /**
+     * Adds a message to the batch. The batch takes ownership of the message.
+     *
+     * @param message message to add
+     * @return this batch
+     */
+    public RakMessageBatch add(RakMessage message) {
+        this.messages.add(message);
+        return this;
+    }
+
+    /**
+     * Returns the messages of the batch
+     *
+     * @return unmodifiable list of messages
+     */
+    public List<RakMessage> messages() {
+        return Collections.unmodifiableList(this.messages);
+    }
+
+    public int size() {
+        return this.messages.size();
+    }
+
+    public boolean isEmpty() {
+        return this.messages.isEmpty();
+    }
+
+    @Override
+    protected void deallocate() {
+        for (RakMessage message : this.messages) {
+            message.release();
+        }
+        this.messages.clear();
+    }
+
+    @Override
+    public RakMessageBatch retain() {
+        return (RakMessageBatch) super.retain();
+    }
+
+    @Override
+    public RakMessageBatch touch(Object hint) {
+        for (RakMessage message : this.messages) {
+            message.touch(hint);
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "RakMessageBatch{" +
+                "messages=" + this.messages.size() +
+                "}";
+    }
+}
@@ -28,6 +28,7 @@ import org.cloudburstmc.netty.channel.raknet.RakReliability;
 import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
 import org.cloudburstmc.netty.channel.raknet.packet.EncapsulatedPacket;
 import org.cloudburstmc.netty.channel.raknet.packet.RakMessage;
+import org.cloudburstmc.netty.handler.codec.raknet.common.RakSessionCodec;
 import org.cloudburstmc.netty.util.RakUtils;
 
 import java.net.InetSocketAddress;
@@ -53,11 +54,18 @@ public class RakClientOnlineInitialHandler extends SimpleChannelInboundHandler<E
     void sendConnectionRequest(ChannelHandlerContext ctx) {
         long guid = this.rakChannel().config().getOption(RakChannelOption.RAK_GUID);
 
-        ByteBuf buffer = ctx.alloc().ioBuffer(18);
+        int fecGroupSize = this.rakChannel().config().getOption(RakChannelOption.RAK_FEC_GROUP_SIZE);
+
+        ByteBuf buffer = ctx.alloc().ioBuffer(fecGroupSize > 0 ? 23 : 18);
         buffer.writeByte(ID_CONNECTION_REQUEST);
         buffer.writeLong(guid);
-        buffer.writeLong(System.currentTimeMillis());
+        buffer.writeLong(this.rakChannel().config().getOption(RakChannelOption.RAK_CLOCK).millis());
         buffer.writeBoolean(false);
+        if (fecGroupSize > 0) {
+            // Servers without the extension ignore the trailing bytes
+            buffer.writeInt(FEC_EXTENSION_MAGIC);
+            buffer.writeByte(fecGroupSize);
+        }
         ctx.writeAndFlush(new RakMessage(buffer, RakReliability.RELIABLE, RakPriority.IMMEDIATE));
     }
 
@@ -100,6 +108,10 @@ public class RakClientOnlineInitialHandler extends SimpleChannelInboundHandler<E
         ByteBuf incomingBuffer = ctx.alloc().ioBuffer();
         this.writeIncomingConnection(ctx, incomingBuffer, buf.readLong());
         buf.readLong();
+
+        if (buf.isReadable(5) && buf.readInt() == FEC_EXTENSION_MAGIC) {
+            ctx.pipeline().get(RakSessionCodec.class).enableFec(buf.readUnsignedByte());
+        }
         ctx.writeAndFlush(new RakMessage(incomingBuffer, RakReliability.RELIABLE_ORDERED, RakPriority.NORMAL));
     }
 
@@ -110,7 +122,7 @@ public class RakClientOnlineInitialHandler extends SimpleChannelInboundHandler<E
             RakUtils.writeAddress(buf, LOCAL_ADDRESS);
         }
         buf.writeLong(pingTime);
-        buf.writeLong(System.currentTimeMillis());
+        buf.writeLong(this.rakChannel().config().getOption(RakChannelOption.RAK_CLOCK).millis());
     }
 
     RakChannel rakChannel() {
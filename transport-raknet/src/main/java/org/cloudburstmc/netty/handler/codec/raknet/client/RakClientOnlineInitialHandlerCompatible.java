@@ -9,10 +9,12 @@ import org.cloudburstmc.netty.channel.raknet.RakPriority;
 import org.cloudburstmc.netty.channel.raknet.RakReliability;
 import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
 import org.cloudburstmc.netty.channel.raknet.packet.RakMessage;
+import org.cloudburstmc.netty.handler.codec.raknet.common.RakSessionCodec;
 import org.cloudburstmc.netty.util.RakUtils;
 
 import java.net.InetSocketAddress;
 
+import static org.cloudburstmc.netty.channel.raknet.RakConstants.FEC_EXTENSION_MAGIC;
 import static org.cloudburstmc.netty.channel.raknet.RakConstants.ID_CONNECTED_PING;
 import static org.cloudburstmc.netty.channel.raknet.RakConstants.ID_NEW_INCOMING_CONNECTION;
 import static org.cloudburstmc.netty.channel.raknet.RakConstants.IPV4_MESSAGE_SIZE;
@@ -60,7 +62,11 @@ public class RakClientOnlineInitialHandlerCompatible extends RakClientOnlineInit
             RakUtils.skipAddress(buf);
         }
         this.pingTime = buf.readLong();
-        return;
+        buf.skipBytes(8);
+
+        if (buf.isReadable(5) && buf.readInt() == FEC_EXTENSION_MAGIC) {
+            ctx.pipeline().get(RakSessionCodec.class).enableFec(buf.readUnsignedByte());
+        }
     }
 
     @Override
@@ -21,6 +21,7 @@ import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.socket.DatagramPacket;
+import org.cloudburstmc.netty.channel.raknet.RakCachedClock;
 import org.cloudburstmc.netty.channel.raknet.RakClientChannel;
 import org.cloudburstmc.netty.channel.raknet.config.RakChannelMetrics;
 
@@ -47,6 +48,7 @@ public class RakClientProxyRouteHandler extends ChannelDuplexHandler {
         }
 
         DatagramPacket datagram = packet.retain();
+        RakCachedClock.enter();
         try {
             if (packet.sender() == null || packet.sender().equals(this.channel.remoteAddress())) {
                 ctx.fireChannelRead(datagram.content());
@@ -54,6 +56,7 @@ public class RakClientProxyRouteHandler extends ChannelDuplexHandler {
                 ctx.fireChannelRead(datagram);
             }
         } finally {
+            RakCachedClock.exit();
             datagram.release();
         }
     }
@@ -20,6 +20,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import org.cloudburstmc.netty.channel.raknet.RakPriority;
 import org.cloudburstmc.netty.channel.raknet.RakReliability;
+import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
 import org.cloudburstmc.netty.channel.raknet.packet.EncapsulatedPacket;
 import org.cloudburstmc.netty.channel.raknet.packet.RakMessage;
 import org.cloudburstmc.netty.handler.codec.raknet.AdvancedChannelInboundHandler;
@@ -49,7 +50,7 @@ public class ConnectedPingHandler extends AdvancedChannelInboundHandler<Encapsul
         ByteBuf replyBuffer = ctx.alloc().ioBuffer(17);
         replyBuffer.writeByte(ID_CONNECTED_PONG);
         replyBuffer.writeLong(pingTime);
-        replyBuffer.writeLong(System.currentTimeMillis());
+        replyBuffer.writeLong(ctx.channel().config().getOption(RakChannelOption.RAK_CLOCK).millis());
         ctx.writeAndFlush(new RakMessage(replyBuffer, RakReliability.UNRELIABLE, RakPriority.IMMEDIATE));
     }
 }
@@ -23,9 +23,7 @@ import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import org.cloudburstmc.netty.channel.raknet.RakDisconnectReason;
 import org.cloudburstmc.netty.channel.raknet.config.RakChannelMetrics;
-import org.cloudburstmc.netty.util.IntRange;
-
-import java.util.Queue;
+import org.cloudburstmc.netty.util.IntRangeQueue;
 
 import static org.cloudburstmc.netty.channel.raknet.RakConstants.*;
 
@@ -60,7 +58,7 @@ public class RakAcknowledgeHandler extends SimpleChannelInboundHandler<ByteBuf>
         boolean nack = (buffer.readByte() & FLAG_NACK) != 0;
         int entriesCount = buffer.readUnsignedShort();
 
-        Queue<IntRange> queue = this.sessionCodec.getAcknowledgeQueue(nack);
+        IntRangeQueue queue = this.sessionCodec.getAcknowledgeQueue(nack);
         for (int i = 0; i < entriesCount; i++) {
             boolean singleton = buffer.readBoolean();
             int start = buffer.readUnsignedMediumLE();
@@ -68,12 +66,12 @@ public class RakAcknowledgeHandler extends SimpleChannelInboundHandler<ByteBuf>
             int end = singleton ? start : buffer.readUnsignedMediumLE();
 
             if (start <= end) {
-                queue.offer(new IntRange(start, end));
+                queue.offer(start, end);
                 continue;
             }
 
             if (log.isTraceEnabled()) {
-                log.trace("{} sent an IntRange with a start value {} greater than an end value of {}", sessionCodec.getChannel().remoteAddress(), start, end);
+                log.trace("{} sent a range with a start value {} greater than an end value of {}", sessionCodec.getChannel().remoteAddress(), start, end);
             }
             this.sessionCodec.disconnect(RakDisconnectReason.BAD_PACKET);
             return;
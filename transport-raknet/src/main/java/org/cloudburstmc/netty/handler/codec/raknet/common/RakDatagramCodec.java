@@ -17,15 +17,21 @@
 package org.cloudburstmc.netty.handler.codec.raknet.common;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.util.concurrent.ScheduledFuture;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import org.cloudburstmc.netty.channel.raknet.packet.EncapsulatedPacket;
 import org.cloudburstmc.netty.channel.raknet.packet.RakDatagramPacket;
+import org.cloudburstmc.netty.util.RakUtils;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.cloudburstmc.netty.channel.raknet.RakConstants.*;
 
@@ -34,23 +40,160 @@ public class RakDatagramCodec extends MessageToMessageCodec<ByteBuf, RakDatagram
 
     private static final InternalLogger log = InternalLoggerFactory.getInstance(RakDatagramCodec.class);
 
+    /**
+     * Number of recent sequence indexes remembered to drop datagrams which were already decoded or rebuilt.
+     */
+    private static final int DECODED_WINDOW = 1024;
+
+    // Forward error correction, enabled once negotiated by the handshake
+    private int fecGroupSize;
+    private int rebuildDelayDatagrams;
+    private long rebuildDelayMillis;
+    private ByteBuf parity;
+    private int paritySequenceIndex;
+    private int parityCount;
+    private ByteBuf[] history;
+    private int[] historySequenceIndexes;
+    private int[] decodedSequenceIndexes;
+    private ArrayDeque<PendingRebuild> pendingRebuilds;
+
     public RakDatagramCodec() {
     }
 
+    /**
+     * Enables XOR parity datagrams. Every {@code groupSize} consecutive datagrams are followed by a parity datagram,
+     * and parity datagrams from the remote peer are used to rebuild a single lost datagram of their group.
+     * <p>
+     * A rebuilt datagram is held back until {@code delayDatagrams} later datagrams were received or {@code delayMillis}
+     * have passed, whichever comes first, so a datagram which is only reordered is not rebuilt. Datagrams which were
+     * already decoded or rebuilt are dropped if they arrive again.
+     *
+     * @param groupSize      number of datagrams per parity datagram, 0 to disable
+     * @param delayDatagrams number of later datagrams after which a missing datagram is rebuilt, 0 to ignore
+     * @param delayMillis    time in milliseconds after which a missing datagram is rebuilt, 0 to ignore
+     */
+    public void setFecGroupSize(int groupSize, int delayDatagrams, long delayMillis) {
+        this.releaseFec();
+        this.fecGroupSize = groupSize;
+        this.rebuildDelayDatagrams = delayDatagrams;
+        this.rebuildDelayMillis = delayMillis;
+        if (groupSize > 0) {
+            // Keep enough datagrams to cover a few groups of reordering
+            int capacity = RakUtils.powerOfTwoCeiling(groupSize * 4);
+            this.history = new ByteBuf[capacity];
+            this.historySequenceIndexes = new int[capacity];
+            this.decodedSequenceIndexes = new int[DECODED_WINDOW];
+            Arrays.fill(this.decodedSequenceIndexes, -1);
+            this.pendingRebuilds = new ArrayDeque<>();
+        }
+    }
+
+    public int getFecGroupSize() {
+        return this.fecGroupSize;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved(ctx);
+        this.releaseFec();
+    }
+
+    private void releaseFec() {
+        if (this.parity != null) {
+            this.parity.release();
+            this.parity = null;
+        }
+        this.parityCount = 0;
+
+        if (this.history != null) {
+            for (ByteBuf body : this.history) {
+                if (body != null) {
+                    body.release();
+                }
+            }
+            this.history = null;
+            this.historySequenceIndexes = null;
+            this.decodedSequenceIndexes = null;
+        }
+
+        if (this.pendingRebuilds != null) {
+            for (PendingRebuild pending : this.pendingRebuilds) {
+                pending.release();
+            }
+            this.pendingRebuilds = null;
+        }
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, RakDatagramPacket packet, List<Object> out) throws Exception {
-        ByteBuf header = ctx.alloc().ioBuffer(4);
-        header.writeByte(packet.getFlags());
-        header.writeMediumLE(packet.getSequenceIndex());
+        ByteBuf buf;
+        ByteBuf body = packet.getEncodedBody();
+        if (body != null) {
+            // The datagram is resent, only the header has changed since it was encoded.
+            buf = ctx.alloc().ioBuffer(RAKNET_DATAGRAM_HEADER_SIZE + body.readableBytes());
+            buf.writeByte(packet.getFlags());
+            buf.writeMediumLE(packet.getSequenceIndex());
+            buf.writeBytes(body, body.readerIndex(), body.readableBytes());
+        } else {
+            // The size of the datagram is known up front, so write everything into one buffer.
+            // The kernel has to copy the datagram anyway, composite buffers would only add allocations.
+            buf = ctx.alloc().ioBuffer(packet.getSize());
+            buf.writeByte(packet.getFlags());
+            buf.writeMediumLE(packet.getSequenceIndex());
 
-        // Use a composite buffer so we don't have to do any memory copying.
-        CompositeByteBuf buf = ctx.alloc().compositeBuffer((packet.getPackets().size() * 2) + 1);
-        buf.addComponent(true, header);
+            boolean reliable = false;
+            for (EncapsulatedPacket encapsulated : packet.getPackets()) {
+                encapsulated.encode(buf);
+                reliable |= encapsulated.getReliability().isReliable();
+            }
 
-        for (EncapsulatedPacket encapsulated : packet.getPackets()) {
-            encapsulated.encode(buf);
+            if (reliable) {
+                // Keep the encoded packets in case the datagram has to be resent. The buffer is not modified after writing.
+                packet.setEncodedBody(buf.retainedSlice(RAKNET_DATAGRAM_HEADER_SIZE, buf.readableBytes() - RAKNET_DATAGRAM_HEADER_SIZE));
+            }
         }
         out.add(buf);
+
+        if (this.fecGroupSize > 0) {
+            this.addToParity(ctx, packet.getSequenceIndex(), buf, out);
+        }
+    }
+
+    /**
+     * XORs the length and body of a datagram into the parity of its group and emits the parity datagram once the group is complete.
+     */
+    private void addToParity(ChannelHandlerContext ctx, int sequenceIndex, ByteBuf datagram, List<Object> out) {
+        if (this.parityCount > 0 && sequenceIndex != ((this.paritySequenceIndex + this.parityCount) & 0xFFFFFF)) {
+            // Groups have to be consecutive, start over
+            this.parityCount = 0;
+        }
+
+        if (this.parityCount == 0) {
+            if (this.parity == null) {
+                this.parity = ctx.alloc().ioBuffer(MAXIMUM_MTU_SIZE);
+            }
+            this.parity.clear();
+            this.parity.writeByte(FLAG_VALID | FLAG_PARITY);
+            this.parity.writeMediumLE(sequenceIndex);
+            this.parity.writeShort(0);
+            this.paritySequenceIndex = sequenceIndex;
+        }
+
+        int length = datagram.readableBytes() - RAKNET_DATAGRAM_HEADER_SIZE;
+        int lengthIndex = RAKNET_DATAGRAM_HEADER_SIZE;
+        this.parity.setShort(lengthIndex, this.parity.getUnsignedShort(lengthIndex) ^ length);
+
+        int end = lengthIndex + FEC_PARITY_OVERHEAD + length;
+        if (this.parity.writerIndex() < end) {
+            this.parity.writeZero(end - this.parity.writerIndex());
+        }
+        xor(this.parity, lengthIndex + FEC_PARITY_OVERHEAD, datagram, datagram.readerIndex() + RAKNET_DATAGRAM_HEADER_SIZE, length);
+
+        if (++this.parityCount == this.fecGroupSize) {
+            out.add(this.parity);
+            this.parity = null;
+            this.parityCount = 0;
+        }
     }
 
     @Override
@@ -68,6 +211,180 @@ public class RakDatagramCodec extends MessageToMessageCodec<ByteBuf, RakDatagram
             return;
         }
 
+        if ((potentialFlags & FLAG_PARITY) != 0) {
+            if (this.fecGroupSize > 0) {
+                this.decodeParity(ctx, buffer, list);
+            }
+            // Parity which arrives before the negotiation has finished cannot be used, it is no regular datagram either
+            return;
+        }
+
+        if (this.fecGroupSize > 0) {
+            int sequenceIndex = buffer.getUnsignedMediumLE(buffer.readerIndex() + 1);
+            if (!this.markDecoded(sequenceIndex)) {
+                // Already decoded or rebuilt from parity. The sender resends under a new sequence index,
+                // so this is a copy and would deliver unreliable packets twice.
+                return;
+            }
+            this.remember(sequenceIndex, buffer);
+            this.onDatagramReceived(sequenceIndex, list);
+        }
+        this.decodeDatagram(buffer, list);
+    }
+
+    /**
+     * Drops the pending rebuild of a datagram which arrived after all and rebuilds datagrams which are now considered lost.
+     */
+    private void onDatagramReceived(int sequenceIndex, List<Object> list) {
+        if (this.pendingRebuilds.isEmpty()) {
+            return;
+        }
+
+        Iterator<PendingRebuild> iterator = this.pendingRebuilds.iterator();
+        while (iterator.hasNext()) {
+            PendingRebuild pending = iterator.next();
+            int distance = (sequenceIndex - pending.sequenceIndex) & 0xFFFFFF;
+            if (distance == 0) {
+                iterator.remove();
+                pending.release();
+            } else if (this.rebuildDelayDatagrams > 0 && distance >= this.rebuildDelayDatagrams && distance < 0x800000) {
+                iterator.remove();
+                this.deliverRebuilt(pending, list);
+            }
+        }
+    }
+
+    private void onRebuildTimeout(ChannelHandlerContext ctx, PendingRebuild pending) {
+        if (this.pendingRebuilds == null || !this.pendingRebuilds.remove(pending)) {
+            return;
+        }
+
+        List<Object> list = new ArrayList<>(1);
+        this.deliverRebuilt(pending, list);
+        if (!list.isEmpty()) {
+            for (Object msg : list) {
+                ctx.fireChannelRead(msg);
+            }
+            ctx.fireChannelReadComplete();
+        }
+    }
+
+    private void deliverRebuilt(PendingRebuild pending, List<Object> list) {
+        try {
+            if (this.markDecoded(pending.sequenceIndex)) {
+                if (log.isTraceEnabled()) {
+                    log.trace("Rebuilt datagram {} from parity", pending.sequenceIndex);
+                }
+                this.remember(pending.sequenceIndex, pending.datagram);
+                this.decodeDatagram(pending.datagram, list);
+            }
+        } finally {
+            pending.release();
+        }
+    }
+
+    /**
+     * Records the sequence index of a decoded or rebuilt datagram.
+     *
+     * @return false if the datagram was already decoded or rebuilt
+     */
+    private boolean markDecoded(int sequenceIndex) {
+        int index = sequenceIndex & (DECODED_WINDOW - 1);
+        if (this.decodedSequenceIndexes[index] == sequenceIndex) {
+            return false;
+        }
+        this.decodedSequenceIndexes[index] = sequenceIndex;
+        return true;
+    }
+
+    private void decodeParity(ChannelHandlerContext ctx, ByteBuf buffer, List<Object> list) {
+        int readerIndex = buffer.readerIndex();
+        if (buffer.readableBytes() < RAKNET_DATAGRAM_HEADER_SIZE + FEC_PARITY_OVERHEAD) {
+            return;
+        }
+        int firstSequenceIndex = buffer.getUnsignedMediumLE(readerIndex + 1);
+
+        // Parity can only rebuild a single missing datagram
+        int missing = -1;
+        int length = buffer.getUnsignedShort(readerIndex + RAKNET_DATAGRAM_HEADER_SIZE);
+        for (int i = 0; i < this.fecGroupSize; i++) {
+            int sequenceIndex = (firstSequenceIndex + i) & 0xFFFFFF;
+            ByteBuf body = this.getHistory(sequenceIndex);
+            if (body != null) {
+                length ^= body.readableBytes();
+            } else if (missing == -1) {
+                missing = sequenceIndex;
+            } else {
+                return;
+            }
+        }
+
+        int payloadIndex = readerIndex + RAKNET_DATAGRAM_HEADER_SIZE + FEC_PARITY_OVERHEAD;
+        if (missing == -1 || length == 0 || length > buffer.writerIndex() - payloadIndex) {
+            return;
+        }
+        if (this.decodedSequenceIndexes[missing & (DECODED_WINDOW - 1)] == missing) {
+            return; // Decoded before, its body is no longer in the history
+        }
+        for (PendingRebuild pending : this.pendingRebuilds) {
+            if (pending.sequenceIndex == missing) {
+                return;
+            }
+        }
+
+        ByteBuf rebuilt = ctx.alloc().ioBuffer(RAKNET_DATAGRAM_HEADER_SIZE + length);
+        try {
+            rebuilt.writeByte(FLAG_VALID);
+            rebuilt.writeMediumLE(missing);
+            rebuilt.writeBytes(buffer, payloadIndex, length);
+            for (int i = 0; i < this.fecGroupSize; i++) {
+                ByteBuf body = this.getHistory((firstSequenceIndex + i) & 0xFFFFFF);
+                if (body != null) {
+                    xor(rebuilt, RAKNET_DATAGRAM_HEADER_SIZE, body, body.readerIndex(), Math.min(length, body.readableBytes()));
+                }
+            }
+        } catch (Throwable t) {
+            rebuilt.release();
+            throw t;
+        }
+
+        // The datagram may only be late, the group members are already xored in so history can move on meanwhile
+        PendingRebuild pending = new PendingRebuild(missing, rebuilt);
+        if (this.rebuildDelayDatagrams == 0 && this.rebuildDelayMillis == 0) {
+            this.deliverRebuilt(pending, list);
+            return;
+        }
+        if (this.rebuildDelayMillis > 0) {
+            pending.timeout = ctx.executor().schedule(() -> this.onRebuildTimeout(ctx, pending),
+                    this.rebuildDelayMillis, TimeUnit.MILLISECONDS);
+        }
+        this.pendingRebuilds.add(pending);
+    }
+
+    private ByteBuf getHistory(int sequenceIndex) {
+        int index = sequenceIndex & (this.history.length - 1);
+        ByteBuf body = this.history[index];
+        return body != null && this.historySequenceIndexes[index] == sequenceIndex ? body : null;
+    }
+
+    /**
+     * Keeps the body of a datagram for rebuilding other datagrams of its group.
+     */
+    private void remember(int sequenceIndex, ByteBuf datagram) {
+        int index = sequenceIndex & (this.history.length - 1);
+        ByteBuf body = this.history[index];
+        if (body != null) {
+            if (this.historySequenceIndexes[index] == sequenceIndex) {
+                return;
+            }
+            body.release();
+        }
+        this.history[index] = datagram.retainedSlice(datagram.readerIndex() + RAKNET_DATAGRAM_HEADER_SIZE,
+                datagram.readableBytes() - RAKNET_DATAGRAM_HEADER_SIZE);
+        this.historySequenceIndexes[index] = sequenceIndex;
+    }
+
+    private void decodeDatagram(ByteBuf buffer, List<Object> list) {
         RakDatagramPacket packet = RakDatagramPacket.newInstance();
         try {
             packet.setFlags(buffer.readByte());
@@ -76,7 +393,7 @@ public class RakDatagramCodec extends MessageToMessageCodec<ByteBuf, RakDatagram
                 EncapsulatedPacket encapsulated = EncapsulatedPacket.newInstance();
                 try {
                     encapsulated.decode(buffer);
-                    packet.getPackets().add(encapsulated.retain());
+                    packet.addPacket(encapsulated.retain());
                 } catch (Throwable t) {
                     log.error("Error decoding encapsulated packet", t); // TODO: this is just temporary for debugging
                     throw t;
@@ -89,4 +406,35 @@ public class RakDatagramCodec extends MessageToMessageCodec<ByteBuf, RakDatagram
             packet.release();
         }
     }
+
+    /**
+     * Datagram rebuilt from parity which is not delivered yet, in case the original is only late.
+     */
+    private static class PendingRebuild {
+        private final int sequenceIndex;
+        private final ByteBuf datagram;
+        private ScheduledFuture<?> timeout;
+
+        PendingRebuild(int sequenceIndex, ByteBuf datagram) {
+            this.sequenceIndex = sequenceIndex;
+            this.datagram = datagram;
+        }
+
+        void release() {
+            if (this.timeout != null) {
+                this.timeout.cancel(false);
+            }
+            this.datagram.release();
+        }
+    }
+
+    private static void xor(ByteBuf dst, int dstIndex, ByteBuf src, int srcIndex, int length) {
+        int i = 0;
+        for (; i + 8 <= length; i += 8) {
+            dst.setLong(dstIndex + i, dst.getLong(dstIndex + i) ^ src.getLong(srcIndex + i));
+        }
+        for (; i < length; i++) {
+            dst.setByte(dstIndex + i, dst.getByte(dstIndex + i) ^ src.getByte(srcIndex + i));
+        }
+    }
 }
@@ -20,9 +20,6 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.*;
 import io.netty.util.ReferenceCountUtil;
-import io.netty.util.collection.IntObjectHashMap;
-import io.netty.util.collection.IntObjectMap;
-import io.netty.util.concurrent.ScheduledFuture;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import org.cloudburstmc.netty.channel.raknet.*;
@@ -31,97 +28,147 @@ import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
 import org.cloudburstmc.netty.channel.raknet.packet.EncapsulatedPacket;
 import org.cloudburstmc.netty.channel.raknet.packet.RakDatagramPacket;
 import org.cloudburstmc.netty.channel.raknet.packet.RakMessage;
+import org.cloudburstmc.netty.channel.raknet.packet.RakMessageBatch;
 import org.cloudburstmc.netty.util.*;
 
 import java.net.Inet6Address;
 import java.net.InetSocketAddress;
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.Iterator;
-import java.util.Queue;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
 
 import static org.cloudburstmc.netty.channel.raknet.RakConstants.*;
 
 public class RakSessionCodec extends ChannelDuplexHandler {
     private static final InternalLogger log = InternalLoggerFactory.getInstance(RakSessionCodec.class);
     public static final String NAME = "rak-session-codec";
+    private static final long SWEEP_INTERVAL = 1000;
+    private static final int WRITABILITY_INDEX = 1;
 
     private final RakChannel channel;
-    private ScheduledFuture<?> tickFuture;
+    private RakSessionTicker ticker;
+    int tickerIndex = -1;
 
     private volatile RakState state;
 
-    private volatile long lastTouched = System.currentTimeMillis();
+    private final RakClock clock;
+    private volatile long lastTouched;
     private volatile long lastFlush;
 
     // Reliability, Ordering, Sequencing and datagram indexes
-    private RakSlidingWindow slidingWindow;
+    private RakCongestionController congestionController;
     private int splitIndex;
     private int datagramReadIndex;
     int datagramWriteIndex;
     private int reliabilityReadIndex;
     private int reliabilityWriteIndex;
-    private int[] orderReadIndex;
     private int[] orderWriteIndex;
 
     private RoundRobinArray<SplitPacketHelper> splitPackets;
+    private boolean splitComposite;
+    private int maxSplitParts;
+    private int maxSplitSize;
+    private int splitBudget;
+    private int splitBufferedBytes;
+    private int splitPacketCount;
+    private boolean splitUsed;
+    private boolean orderingUsed;
+    private long lastSweep;
     private BitQueue reliableDatagramQueue;
 
-    private FastBinaryMinHeap<EncapsulatedPacket> outgoingPackets;
-    private long[] outgoingPacketNextWeights;
-    private FastBinaryMinHeap<EncapsulatedPacket>[] orderingHeaps;
+    private DeficitRoundRobinQueue<EncapsulatedPacket> outgoingPackets;
+    private long queuedBytes;
+    private boolean writable = true;
+    private OrderingWindow<EncapsulatedPacket>[] orderingWindows;
+    private int orderingWindowSize;
     long currentPingTime = -1;
     private long lastPingTime = -1;
     private long lastPongTime = -1;
-    private IntObjectMap<RakDatagramPacket> sentDatagrams;
-    private Queue<IntRange> incomingAcks;
-    private Queue<IntRange> incomingNaks;
-    private Deque<IntRange> outgoingAcks;
-    private Queue<IntRange> outgoingNaks;
-    private long lastMinWeight;
+    private SequenceWindow<RakDatagramPacket> sentDatagrams;
+    private RetransmissionQueue retransmissionQueue;
+    private IntRangeQueue incomingAcks;
+    private IntRangeQueue incomingNaks;
+    private IntRangeQueue outgoingAcks;
+    private IntRangeQueue outgoingNaks;
+    private ReorderWindow missingDatagrams;
+    private int nakReorderDatagrams;
+    private long nakReorderDelay;
+    private RakAckPolicy ackPolicy;
+    private int ackDelayDatagrams;
+    private int fastRetransmitThreshold;
+    private int fastRetransmitRecovery;
+    private long ackDelayMillis;
+    private int unackedDatagrams;
+    private long oldestUnackedTime;
+    private int flushInterval;
+    private int pacingInterval;
+    private long lastTick;
+    private double pacingTokens;
+    private double evenPacingRate;
+    private long lastPacingRefill = -1;
+    private int fecOverhead;
 
     public RakSessionCodec(RakChannel channel) {
         this.channel = channel;
+        this.clock = channel.config().getOption(RakChannelOption.RAK_CLOCK);
+        this.lastTouched = this.clock.millis();
         this.setState(RakState.UNCONNECTED);
     }
 
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         this.setState(RakState.CONNECTED);
+        // Parity is negotiated later in the handshake. Reserve its overhead from the start, so the MTU does not change
+        // after packets have already been split or queued for the larger size.
+        if (this.channel.config().getOption(RakChannelOption.RAK_FEC_GROUP_SIZE) > 0) {
+            this.fecOverhead = FEC_PARITY_OVERHEAD;
+        }
         int mtu = this.getMtu();
 
-        this.slidingWindow = new RakSlidingWindow(mtu);
-
-        this.outgoingPacketNextWeights = new long[4];
-        this.initHeapWeights();
+        this.congestionController = this.channel.config().getOption(RakChannelOption.RAK_CONGESTION_CONTROLLER)
+                .newController(this.channel, mtu);
 
         int maxChannels = this.channel.config().getOption(RakChannelOption.RAK_ORDERING_CHANNELS);
-        this.orderReadIndex = new int[maxChannels];
         this.orderWriteIndex = new int[maxChannels];
 
+        // Ordering windows and split packet state are allocated on first use, most sessions only use a single channel
+        this.orderingWindowSize = this.channel.config().getOption(RakChannelOption.RAK_ORDERING_WINDOW);
         // Noinspection unchecked
-        this.orderingHeaps = new FastBinaryMinHeap[maxChannels];
-        for (int i = 0; i < maxChannels; i++) {
-            orderingHeaps[i] = new FastBinaryMinHeap<>(64);
-        }
-
-        this.outgoingPackets = new FastBinaryMinHeap<>(8);
-        this.sentDatagrams = new IntObjectHashMap<>();
-
-        this.incomingAcks = new ArrayDeque<>();
-        this.incomingNaks = new ArrayDeque<>();
-        this.outgoingAcks = new ArrayDeque<>();
-        this.outgoingNaks = new ArrayDeque<>();
+        this.orderingWindows = new OrderingWindow[maxChannels];
+
+        this.outgoingPackets = new DeficitRoundRobinQueue<>(this.channel.config().getOption(RakChannelOption.RAK_PRIORITY_QUANTA),
+                EncapsulatedPacket::getSize);
+        this.sentDatagrams = new SequenceWindow<>(64);
+        this.retransmissionQueue = new RetransmissionQueue(64);
+
+        this.incomingAcks = new IntRangeQueue();
+        this.incomingNaks = new IntRangeQueue();
+        this.outgoingAcks = new IntRangeQueue();
+        this.outgoingNaks = new IntRangeQueue();
+        this.missingDatagrams = new ReorderWindow();
+
+        this.ackPolicy = this.channel.config().getOption(RakChannelOption.RAK_ACK_POLICY);
+        this.ackDelayDatagrams = this.channel.config().getOption(RakChannelOption.RAK_ACK_DELAY_DATAGRAMS);
+        this.ackDelayMillis = this.channel.config().getOption(RakChannelOption.RAK_ACK_DELAY_MS);
+        this.fastRetransmitThreshold = this.channel.config().getOption(RakChannelOption.RAK_FAST_RETRANSMIT_THRESHOLD);
+        this.nakReorderDatagrams = this.channel.config().getOption(RakChannelOption.RAK_NAK_REORDER_DATAGRAMS);
+        this.nakReorderDelay = this.channel.config().getOption(RakChannelOption.RAK_NAK_REORDER_DELAY_MS);
 
         this.reliableDatagramQueue = new BitQueue(512);
-        this.splitPackets = new RoundRobinArray<>(256);
+        this.splitComposite = this.channel.config().getOption(RakChannelOption.RAK_SPLIT_COMPOSITE);
+        this.maxSplitParts = this.channel.config().getOption(RakChannelOption.RAK_MAX_SPLIT_PARTS);
+        this.maxSplitSize = this.channel.config().getOption(RakChannelOption.RAK_MAX_SPLIT_SIZE);
+        this.splitBudget = this.channel.config().getOption(RakChannelOption.RAK_SPLIT_BUDGET);
 
         // After session is fully initialized, start ticking.
         boolean autoFlush = this.channel.config().isAutoFlush();
         // Make sure there happens at least one flush per 10ms to respect standard RakNet behavior
-        int flushInterval = autoFlush ? this.channel.config().getFlushInterval() : 10;
-        this.tickFuture = ctx.channel().eventLoop().scheduleAtFixedRate(this::tryTick, 0, flushInterval, TimeUnit.MILLISECONDS);
+        this.flushInterval = autoFlush ? this.channel.config().getFlushInterval() : 10;
+        // Pacing sends datagrams in between the regular ticks, so tick more often
+        int pacingInterval = this.channel.config().getOption(RakChannelOption.RAK_PACING_INTERVAL_MS);
+        this.pacingInterval = pacingInterval > 0 && pacingInterval < this.flushInterval ? pacingInterval : 0;
+        // All sessions of the same event loop are ticked by one shared task.
+        this.ticker = RakSessionTicker.get(ctx.channel().eventLoop(), this.pacingInterval > 0 ? this.pacingInterval : this.flushInterval);
+        this.ticker.register(this);
 
         ctx.fireChannelActive(); // fire channel active on rakPipeline()
     }
@@ -129,47 +176,52 @@ public class RakSessionCodec extends ChannelDuplexHandler {
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         super.channelInactive(ctx);
-        if (this.state == RakState.DISCONNECTED && this.tickFuture == null) {
+        if (this.state == RakState.DISCONNECTED && this.ticker == null) {
             // Already deinitialized
             return;
         }
         this.setState(RakState.DISCONNECTED);
-        this.tickFuture.cancel(false);
-        this.tickFuture = null;
+        this.ticker.deregister(this);
+        this.ticker = null;
 
         // Perform resource clean up.
-        for (SplitPacketHelper helper : this.splitPackets) {
-            if (helper != null) {
-                helper.release();
+        if (this.splitPackets != null) {
+            for (SplitPacketHelper helper : this.splitPackets) {
+                if (helper != null) {
+                    helper.release();
+                }
             }
+            this.splitPackets = null;
         }
-        this.splitPackets = null;
 
-        for (RakDatagramPacket packet : this.sentDatagrams.values()) {
-            packet.release();
-        }
+        this.retransmissionQueue.clear();
+        this.retransmissionQueue = null;
+        SequenceWindow<RakDatagramPacket> sentDatagrams = this.sentDatagrams;
         this.sentDatagrams = null;
+        for (int i = sentDatagrams.start(), end = sentDatagrams.end(); i < end; i++) {
+            RakDatagramPacket packet = sentDatagrams.remove(i);
+            if (packet != null) {
+                packet.release();
+            }
+        }
 
-        FastBinaryMinHeap<EncapsulatedPacket>[] orderingHeaps = this.orderingHeaps;
-        this.orderingHeaps = null;
-        if (orderingHeaps != null) {
-            for (FastBinaryMinHeap<EncapsulatedPacket> orderingHeap : orderingHeaps) {
-                EncapsulatedPacket packet;
-                while ((packet = orderingHeap.poll()) != null) {
-                    packet.release();
+        OrderingWindow<EncapsulatedPacket>[] orderingWindows = this.orderingWindows;
+        this.orderingWindows = null;
+        if (orderingWindows != null) {
+            for (OrderingWindow<EncapsulatedPacket> orderingWindow : orderingWindows) {
+                if (orderingWindow != null) {
+                    orderingWindow.clear();
                 }
-                orderingHeap.release();
             }
         }
 
-        FastBinaryMinHeap<EncapsulatedPacket> outgoingPackets = this.outgoingPackets;
+        DeficitRoundRobinQueue<EncapsulatedPacket> outgoingPackets = this.outgoingPackets;
         this.outgoingPackets = null;
         if (outgoingPackets != null) {
             EncapsulatedPacket packet;
             while ((packet = outgoingPackets.poll()) != null) {
                 packet.release();
             }
-            outgoingPackets.release();
         }
 
         if (log.isTraceEnabled()) {
@@ -177,29 +229,29 @@ public class RakSessionCodec extends ChannelDuplexHandler {
         }
     }
 
-    private void initHeapWeights() {
-        for (int priorityLevel = 0; priorityLevel < 4; priorityLevel++) {
-            this.outgoingPacketNextWeights[priorityLevel] = (1 << priorityLevel) * priorityLevel + priorityLevel;
-        }
-    }
-
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
         if (!this.channel.parent().eventLoop().inEventLoop()) {
-            // Make sure this runs on correct thread
-            log.error("Tried to write packet from wrong thread: {}", Thread.currentThread().getName(), new Throwable());
+            // Make sure this runs on correct thread, writes from other threads are a supported hand-off and not an error
+            if (log.isTraceEnabled()) {
+                log.trace("Handing off write from thread {} to the event loop", Thread.currentThread().getName());
+            }
             final Object finalMsg = msg;
             this.channel.parent().eventLoop().execute(() -> this.write(ctx, finalMsg, promise));
             return;
         }
         if (msg instanceof ByteBuf) {
             msg = new RakMessage((ByteBuf) msg);
-        } else if (!(msg instanceof RakMessage)) {
-            throw new IllegalArgumentException("Message must be a ByteBuf or RakMessage");
+        } else if (!(msg instanceof RakMessage) && !(msg instanceof RakMessageBatch)) {
+            throw new IllegalArgumentException("Message must be a ByteBuf, RakMessage or RakMessageBatch");
         }
 
         try {
-            this.send(ctx, (RakMessage) msg);
+            if (msg instanceof RakMessageBatch) {
+                this.sendBatch(ctx, (RakMessageBatch) msg);
+            } else {
+                this.send(ctx, (RakMessage) msg);
+            }
             promise.setSuccess(null);
         } finally {
             ReferenceCountUtil.release(msg);
@@ -231,6 +283,21 @@ public class RakSessionCodec extends ChannelDuplexHandler {
         }
     }
 
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        if ((this.state == RakState.CONNECTED || this.state == RakState.DISCONNECTING) && this.ackPolicy != RakAckPolicy.TICK
+                && !this.outgoingAcks.isEmpty() && this.shouldSendAcks(this.clock.millis())) {
+            int writtenAcks = this.sendAcks(ctx);
+            ctx.flush();
+
+            RakChannelMetrics metrics = this.getMetrics();
+            if (metrics != null) {
+                metrics.ackOut(writtenAcks);
+            }
+        }
+        ctx.fireChannelReadComplete();
+    }
+
     @Override
     public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
         this.disconnect0(RakDisconnectReason.DISCONNECTED).addListener(future -> {
@@ -261,14 +328,83 @@ public class RakSessionCodec extends ChannelDuplexHandler {
             return;
         }
 
-        long weight = this.getNextWeight(message.priority());
-        if (packets.length == 1) {
-            this.outgoingPackets.insert(weight, packets[0]);
-        } else {
-            this.outgoingPackets.insertSeries(weight, packets);
+        this.outgoingPackets.offer(message.priority().ordinal(), packets);
+        this.onQueued(packets);
+    }
+
+    private void sendBatch(ChannelHandlerContext ctx, RakMessageBatch batch) {
+        if (this.state == RakState.UNCONNECTED) {
+            throw new IllegalStateException("Can not send RakMessage to inactive channel");
+        }
+
+        List<RakMessage> messages = batch.messages();
+        // Validate everything first so an invalid message does not leave the batch half queued
+        for (RakMessage message : messages) {
+            if (message.content().getUnsignedByte(message.content().readerIndex()) == 0xc0) {
+                throw new IllegalArgumentException();
+            }
+        }
+
+        RakChannelMetrics metrics = this.getMetrics();
+        if (metrics != null) {
+            metrics.encapsulatedOut(messages.size());
+        }
+
+        for (RakMessage message : messages) {
+            EncapsulatedPacket[] packets = this.createEncapsulated(message);
+            if (message.priority() == RakPriority.IMMEDIATE) {
+                this.sendImmediate(ctx, packets);
+            } else {
+                this.outgoingPackets.offer(message.priority().ordinal(), packets);
+                this.onQueued(packets);
+            }
+        }
+    }
+
+    private void onQueued(EncapsulatedPacket[] packets) {
+        for (EncapsulatedPacket packet : packets) {
+            this.queuedBytes += packet.getSize();
+        }
+        if (this.writable && this.queuedBytes > this.channel.config().getWriteBufferWaterMark().high()) {
+            this.setWritable(false);
+        }
+    }
+
+    /**
+     * Marks the channel as (un)writable once the queued bytes cross the {@link WriteBufferWaterMark} of the channel.
+     * The flag is stored as user defined writability of the outbound buffer so {@link Channel#isWritable()} and
+     * {@link ChannelInboundHandler#channelWritabilityChanged(ChannelHandlerContext)} behave like on any other channel.
+     */
+    private void setWritable(boolean writable) {
+        this.writable = writable;
+        ChannelOutboundBuffer buffer = this.channel.unsafe().outboundBuffer();
+        if (buffer != null) {
+            buffer.setUserDefinedWritability(WRITABILITY_INDEX, writable);
         }
     }
 
+    private void onMissingDatagrams(int start, int end) {
+        if (this.nakReorderDatagrams == 0 && this.nakReorderDelay == 0) {
+            this.outgoingNaks.offer(start, end);
+        } else if (!this.missingDatagrams.addMissing(start, end, this.clock.millis())) {
+            // The gap is too large to wait for reordering, report everything right away
+            this.missingDatagrams.pollAll(this.outgoingNaks);
+            this.outgoingNaks.offer(start, end);
+        }
+    }
+
+    /**
+     * Moves gaps which have outlived the reorder window to the outgoing NAKs.
+     */
+    private void expireMissingDatagrams(long curTime) {
+        if (this.missingDatagrams.isEmpty()) {
+            return;
+        }
+        int expiredIndex = this.nakReorderDatagrams > 0 ? this.datagramReadIndex - 1 - this.nakReorderDatagrams : Integer.MIN_VALUE;
+        long expiredTime = this.nakReorderDelay > 0 ? curTime - this.nakReorderDelay : Long.MIN_VALUE;
+        this.missingDatagrams.poll(this.outgoingNaks, expiredIndex, expiredTime);
+    }
+
     private void handleDatagram(ChannelHandlerContext ctx, RakDatagramPacket packet) {
         this.touch();
         RakChannelMetrics metrics = this.getMetrics();
@@ -276,7 +412,7 @@ public class RakSessionCodec extends ChannelDuplexHandler {
             metrics.rakDatagramsIn(1);
         }
 
-        this.slidingWindow.onPacketReceived(packet.getSendTime());
+        this.congestionController.onPacketReceived(packet.getSendTime());
 
         int prevSequenceIndex = this.datagramReadIndex;
         if (prevSequenceIndex <= packet.getSequenceIndex()) {
@@ -285,17 +421,23 @@ public class RakSessionCodec extends ChannelDuplexHandler {
 
         int missedDatagrams = packet.getSequenceIndex() - prevSequenceIndex;
         if (missedDatagrams > 0) {
-            this.outgoingNaks.offer(new IntRange(packet.getSequenceIndex() - missedDatagrams, packet.getSequenceIndex() - 1));
+            this.onMissingDatagrams(prevSequenceIndex, packet.getSequenceIndex() - 1);
+        } else if (missedDatagrams < 0 && this.missingDatagrams.remove(packet.getSequenceIndex()) && metrics != null) {
+            // Reordered datagram arrived before its gap was reported
+            metrics.nackSuppressed(1);
         }
 
         int sequenceIndex = packet.getSequenceIndex();
-        IntRange lastRange = this.outgoingAcks.peekLast();
-        
+
         // Check if the new sequence index is exactly 1 greater than the last range's end
-        if (lastRange != null && lastRange.end == sequenceIndex - 1) {
-            lastRange.end = sequenceIndex;
+        if (!this.outgoingAcks.isEmpty() && this.outgoingAcks.peekLastEnd() == sequenceIndex - 1) {
+            this.outgoingAcks.setLastEnd(sequenceIndex);
         } else {
-            this.outgoingAcks.offer(new IntRange(sequenceIndex, sequenceIndex));
+            this.outgoingAcks.offer(sequenceIndex, sequenceIndex);
+        }
+
+        if (this.unackedDatagrams++ == 0) {
+            this.oldestUnackedTime = this.clock.millis();
         }
 
         for (final EncapsulatedPacket encapsulated : packet.getPackets()) {
@@ -365,57 +507,142 @@ public class RakSessionCodec extends ChannelDuplexHandler {
     }
 
     private void onOrderedReceived(ChannelHandlerContext ctx, EncapsulatedPacket packet) {
-        FastBinaryMinHeap<EncapsulatedPacket> binaryHeap = this.orderingHeaps[packet.getOrderingChannel()];
-        if (this.orderReadIndex[packet.getOrderingChannel()] < packet.getOrderingIndex()) {
-            // Not next in line so add to queue.
-            binaryHeap.insert(packet.getOrderingIndex(), packet.retain());
-            return;
-        } else if (this.orderReadIndex[packet.getOrderingChannel()] > packet.getOrderingIndex()) {
+        OrderingWindow<EncapsulatedPacket> window = this.orderingWindows[packet.getOrderingChannel()];
+        if (window == null) {
+            this.orderingWindows[packet.getOrderingChannel()] = window = new OrderingWindow<>(16, this.orderingWindowSize);
+        }
+        int offset = window.offset(packet.getOrderingIndex());
+        if (offset < 0) {
             // We already have this
             return;
+        } else if (offset > 0) {
+            if (!window.fits(offset)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("[{}] Ordered packet {} on channel {} is too far ahead of {}", this.getRemoteAddress(),
+                            packet.getOrderingIndex(), packet.getOrderingChannel(), window.getReadIndex());
+                }
+                this.disconnect(RakDisconnectReason.BAD_PACKET);
+                return;
+            }
+
+            // Not next in line so add to window, unless we already have it.
+            if (window.put(packet.getOrderingIndex(), packet)) {
+                packet.retain();
+            }
+            this.orderingUsed = true;
+            return;
         }
-        this.orderReadIndex[packet.getOrderingChannel()]++;
+        window.advance();
 
         // Can be handled
         ctx.fireChannelRead(packet.retain());
 
         EncapsulatedPacket queuedPacket;
-        while ((queuedPacket = binaryHeap.peek()) != null) {
-            if (queuedPacket.getOrderingIndex() == this.orderReadIndex[packet.getOrderingChannel()]) {
-                try {
-                    // We got the expected packet
-                    binaryHeap.remove();
-                    this.orderReadIndex[packet.getOrderingChannel()]++;
-                    ctx.fireChannelRead(queuedPacket.retain());
-                } finally {
-                    queuedPacket.release();
-                }
-            } else {
-                // Found a gap. Wait till we start receive another ordered packet.
-                break;
-            }
+        while ((queuedPacket = window.poll()) != null) {
+            // The window reference is handed over to the pipeline
+            ctx.fireChannelRead(queuedPacket);
         }
     }
 
     private EncapsulatedPacket getReassembledPacket(EncapsulatedPacket splitPacket, ByteBufAllocator alloc) {
         this.checkForClosed();
 
-        SplitPacketHelper helper = this.splitPackets.get(splitPacket.getPartId());
-        if (helper == null) {
-            this.splitPackets.set(splitPacket.getPartId(), helper = new SplitPacketHelper(splitPacket.getPartCount()));
+        int partId = splitPacket.getPartId();
+        int partCount = splitPacket.getPartCount();
+        int partIndex = splitPacket.getPartIndex();
+        if (partCount < 2 || partCount > this.maxSplitParts || partIndex < 0 || partIndex >= partCount) {
+            this.onInvalidSplitPacket(splitPacket, "invalid part " + partIndex + "/" + partCount);
+            return null;
+        }
+
+        if (this.splitPackets == null) {
+            this.splitPackets = new RoundRobinArray<>(256);
+        }
+        this.splitUsed = true;
+
+        SplitPacketHelper helper = this.splitPackets.get(partId);
+        if (helper == null || helper.getPartId() != partId) {
+            if (helper != null) {
+                // Another split packet is still using this slot, it is most likely abandoned
+                this.splitBufferedBytes -= helper.getBufferedBytes();
+                this.splitPacketCount--;
+            }
+            this.splitPackets.set(partId, helper = new SplitPacketHelper(partId, partCount, this.clock.millis()));
+            this.splitPacketCount++;
+        } else if (helper.getExpectedLength() != partCount) {
+            this.onInvalidSplitPacket(splitPacket, "part count changed from " + helper.getExpectedLength() + " to " + partCount);
+            return null;
+        }
+
+        int size = splitPacket.getBuffer().readableBytes();
+        int bufferedBytes = helper.getBufferedBytes();
+        if (bufferedBytes + size > this.maxSplitSize) {
+            this.onInvalidSplitPacket(splitPacket, "packet exceeds " + this.maxSplitSize + " bytes");
+            return null;
+        }
+        if (this.splitBufferedBytes + size > this.splitBudget) {
+            this.onInvalidSplitPacket(splitPacket, "session exceeds split budget of " + this.splitBudget + " bytes");
+            return null;
         }
 
         // Try reassembling the packet.
-        EncapsulatedPacket result = helper.add(splitPacket, alloc);
+        EncapsulatedPacket result = helper.add(splitPacket, alloc, this.splitComposite);
         if (result != null) {
             // Packet reassembled. Remove the helper
-            this.splitPackets.remove(splitPacket.getPartId(), helper);
+            this.splitBufferedBytes -= bufferedBytes;
+            this.splitPacketCount--;
+            this.splitPackets.remove(partId, helper);
+        } else {
+            this.splitBufferedBytes += helper.getBufferedBytes() - bufferedBytes;
         }
 
         return result;
     }
 
-    private void tryTick() {
+    private void onInvalidSplitPacket(EncapsulatedPacket splitPacket, String reason) {
+        if (log.isDebugEnabled()) {
+            log.debug("[{}] Invalid split packet {}: {}", this.getRemoteAddress(), splitPacket.getPartId(), reason);
+        }
+        this.disconnect(RakDisconnectReason.BAD_PACKET);
+    }
+
+    /**
+     * Releases expired split packets and reassembly state which has not been used since the last sweep.
+     */
+    private void sweep(long curTime) {
+        if (this.splitPacketCount > 0) {
+            Iterator<SplitPacketHelper> iterator = this.splitPackets.iterator();
+            while (iterator.hasNext()) {
+                SplitPacketHelper helper = iterator.next();
+                if (helper != null && helper.expired(curTime)) {
+                    this.splitBufferedBytes -= helper.getBufferedBytes();
+                    this.splitPacketCount--;
+                    iterator.remove();
+                }
+            }
+        }
+
+        if (this.splitPackets != null && this.splitPacketCount == 0 && !this.splitUsed) {
+            this.splitPackets = null;
+        }
+        this.splitUsed = false;
+
+        if (!this.orderingUsed) {
+            for (OrderingWindow<EncapsulatedPacket> window : this.orderingWindows) {
+                if (window != null) {
+                    window.trim();
+                }
+            }
+        }
+        this.orderingUsed = false;
+    }
+
+    void tryTick() {
+        if (this.state == RakState.DISCONNECTED) {
+            // Deregistration from the ticker may still be pending
+            return;
+        }
+
         try {
             this.onTick();
         } catch (Throwable t) {
@@ -425,7 +652,17 @@ public class RakSessionCodec extends ChannelDuplexHandler {
     }
 
     private void onTick() {
-        long curTime = System.currentTimeMillis();
+        long curTime = this.clock.millis();
+
+        if (this.congestionController != null) {
+            this.congestionController.onTick(curTime);
+        }
+
+        if (this.pacingInterval > 0 && this.state != RakState.UNCONNECTED && curTime - this.lastTick < this.flushInterval) {
+            this.sendPacedDatagrams(curTime);
+            return;
+        }
+        this.lastTick = curTime;
 
         if (this.state == RakState.UNCONNECTED) {
             if (this.isTimedOut(curTime)) {
@@ -439,13 +676,53 @@ public class RakSessionCodec extends ChannelDuplexHandler {
             return;
         }
 
+        if (curTime - this.lastSweep >= SWEEP_INTERVAL) {
+            this.lastSweep = curTime;
+            this.sweep(curTime);
+        }
+
         ChannelHandlerContext ctx = ctx();
 
         this.writePing(ctx, curTime);
 
+        if (this.pacingInterval > 0) {
+            // Spread the window evenly over the next flush interval unless the congestion controller knows a better rate
+            this.evenPacingRate = (double) this.congestionController.getTransmissionBandwidth() / this.flushInterval;
+        }
+
         this.internalFlush(ctx);
     }
 
+    private void sendPacedDatagrams(long curTime) {
+        if (this.outgoingPackets.isEmpty()) {
+            return;
+        }
+
+        ChannelHandlerContext ctx = ctx();
+        this.sendDatagrams(ctx, curTime, this.getMtu());
+        ctx.flush();
+    }
+
+    /**
+     * Refills the pacing token bucket and returns the amount of bytes which may be sent now.
+     */
+    private int refillPacingTokens(long curTime) {
+        double rate = this.congestionController.getPacingRate();
+        if (rate <= 0) {
+            rate = this.evenPacingRate;
+        }
+
+        // Allow a burst of one pacing interval, but at least one full datagram
+        double maxTokens = Math.max(rate * this.pacingInterval, this.getMtu());
+        if (this.lastPacingRefill == -1) {
+            this.pacingTokens = maxTokens;
+        } else {
+            this.pacingTokens = Math.min(this.pacingTokens + rate * (curTime - this.lastPacingRefill), maxTokens);
+        }
+        this.lastPacingRefill = curTime;
+        return (int) this.pacingTokens;
+    }
+
     void writePing(ChannelHandlerContext ctx, long curTime) {
         if (this.currentPingTime + 2000L < curTime && this.datagramWriteIndex > 1) {
             ByteBuf buffer = ctx.alloc().ioBuffer(9);
@@ -457,7 +734,7 @@ public class RakSessionCodec extends ChannelDuplexHandler {
     }
 
     private void internalFlush(ChannelHandlerContext ctx) {
-        long curTime = System.currentTimeMillis();
+        long curTime = this.clock.millis();
         if (this.lastFlush == curTime) {
             return; // do not flush multiple times within one ms
         }
@@ -472,16 +749,11 @@ public class RakSessionCodec extends ChannelDuplexHandler {
         int writtenAcks = 0;
         int writtenNacks = 0;
 
-        // if (this.slidingWindow.shouldSendAcks(curTime)) {
-        while (!this.outgoingAcks.isEmpty()) {
-            ByteBuf buffer = ctx.alloc().ioBuffer(ackMtu);
-            buffer.writeByte(FLAG_VALID | FLAG_ACK);
-            writtenAcks += RakUtils.writeAckEntries(buffer, this.outgoingAcks, ackMtu - 1);
-            ctx.write(buffer);
-            this.slidingWindow.onSendAck();
+        if (this.ackPolicy != RakAckPolicy.DELAYED || this.shouldSendAcks(curTime)) {
+            writtenAcks = this.sendAcks(ctx);
         }
-        // }
 
+        this.expireMissingDatagrams(curTime);
         while (!this.outgoingNaks.isEmpty()) {
             ByteBuf buffer = ctx.alloc().ioBuffer(ackMtu);
             buffer.writeByte(FLAG_VALID | FLAG_NACK);
@@ -504,33 +776,108 @@ public class RakSessionCodec extends ChannelDuplexHandler {
         }
     }
 
-    private void handleIncomingAcknowledge(ChannelHandlerContext ctx, long curTime, Queue<IntRange> queue, boolean nack) {
+    private boolean shouldSendAcks(long curTime) {
+        switch (this.ackPolicy) {
+            case IMMEDIATE:
+                return true;
+            case DELAYED:
+                return this.unackedDatagrams >= this.ackDelayDatagrams || curTime - this.oldestUnackedTime >= this.ackDelayMillis;
+            default:
+                return false;
+        }
+    }
+
+    private int sendAcks(ChannelHandlerContext ctx) {
+        int ackMtu = this.getMtu() - RAKNET_DATAGRAM_HEADER_SIZE;
+        int writtenAcks = 0;
+        while (!this.outgoingAcks.isEmpty()) {
+            ByteBuf buffer = ctx.alloc().ioBuffer(ackMtu);
+            buffer.writeByte(FLAG_VALID | FLAG_ACK);
+            writtenAcks += RakUtils.writeAckEntries(buffer, this.outgoingAcks, ackMtu - 1);
+            ctx.write(buffer);
+            this.congestionController.onSendAck();
+        }
+        this.unackedDatagrams = 0;
+        return writtenAcks;
+    }
+
+    private void handleIncomingAcknowledge(ChannelHandlerContext ctx, long curTime, IntRangeQueue queue, boolean nack) {
         if (queue.isEmpty()) {
             return;
         }
 
-//        if (nack) {
-//            this.slidingWindow.onNak();
-//        }
+        if (nack) {
+            this.congestionController.onNak();
+        }
 
-        IntRange range;
-        while ((range = queue.poll()) != null) {
-            for (int i = range.start; i <= range.end; i++) {
+        int highestAcked = -1;
+        while (!queue.isEmpty()) {
+            // Only datagrams within the in-flight window can be acknowledged, so clamp the range to it
+            // instead of looking up every index the remote peer sent us.
+            int start = Math.max(queue.peekStart(), this.sentDatagrams.start());
+            int end = Math.min(queue.peekEnd(), this.sentDatagrams.end() - 1);
+            queue.remove();
+            for (int i = start; i <= end; i++) {
                 RakDatagramPacket datagram = this.sentDatagrams.remove(i);
                 if (datagram != null) {
+                    this.retransmissionQueue.remove(datagram);
                     if (nack) {
                         this.onIncomingNack(ctx, datagram, curTime);
                     } else {
                         this.onIncomingAck(datagram, curTime);
+                        highestAcked = i;
                     }
                 }
             }
         }
+
+        if (highestAcked != -1 && this.fastRetransmitThreshold > 0) {
+            this.fastRetransmit(ctx, curTime, highestAcked - this.fastRetransmitThreshold);
+        }
+    }
+
+    /**
+     * Resends datagrams which are still unacknowledged although enough later datagrams have been acknowledged.
+     * This recovers lost datagrams without waiting for the retransmission timeout if the NAK got lost as well.
+     * Resent datagrams get a new sequence index, so they are only resent again once datagrams after them are acknowledged.
+     * The resends are limited by the retransmission bandwidth like stale datagrams, the rest is resent on later acknowledgements.
+     */
+    private void fastRetransmit(ChannelHandlerContext ctx, long curTime, int lostBefore) {
+        int transmissionBandwidth = this.congestionController.getRetransmissionBandwidth();
+        int firstLost = -1;
+        for (int i = this.sentDatagrams.start(); i <= lostBefore && !this.sentDatagrams.isEmpty(); i++) {
+            RakDatagramPacket datagram = this.sentDatagrams.get(i);
+            if (datagram == null) {
+                continue;
+            }
+            int size = datagram.getSize();
+            if (transmissionBandwidth < size) {
+                break;
+            }
+            transmissionBandwidth -= size;
+            this.sentDatagrams.remove(i);
+            this.retransmissionQueue.remove(datagram);
+
+            if (log.isTraceEnabled()) {
+                log.trace("Fast retransmit of datagram {} to {}", i, this.getRemoteAddress());
+            }
+            if (firstLost == -1) {
+                firstLost = i;
+            }
+            this.sendDatagram(ctx, datagram, curTime);
+        }
+
+        // Treat it like a NAK, the path still delivers the datagrams after the lost one. Losses of datagrams sent before
+        // the previous fast retransmission belong to the same loss event and are only reported once.
+        if (firstLost != -1 && firstLost >= this.fastRetransmitRecovery) {
+            this.congestionController.onNak();
+            this.fastRetransmitRecovery = this.datagramWriteIndex;
+        }
     }
 
     private void onIncomingAck(RakDatagramPacket datagram, long curTime) {
         try {
-            this.slidingWindow.onAck(curTime, datagram, this.datagramReadIndex);
+            this.congestionController.onAck(curTime, datagram, this.datagramReadIndex);
         } finally {
             datagram.release();
         }
@@ -541,47 +888,37 @@ public class RakSessionCodec extends ChannelDuplexHandler {
             log.trace("NAK'ed datagram {} from {}", datagram.getSequenceIndex(), this.getRemoteAddress());
         }
 
-        this.slidingWindow.onNak(); // TODO: verify this
-        this.sendDatagram(ctx, datagram, curTime, this.sentDatagrams);
+        this.sendDatagram(ctx, datagram, curTime);
     }
 
     private int sendStaleDatagrams(ChannelHandlerContext ctx, long curTime) {
-        if (this.sentDatagrams.isEmpty()) {
+        if (this.retransmissionQueue.isEmpty()) {
             return 0;
         }
 
-        boolean hasResent = false;
         int resendCount = 0;
-        int transmissionBandwidth = this.slidingWindow.getRetransmissionBandwidth();
-
-        IntObjectMap<RakDatagramPacket> sent = new IntObjectHashMap<>();
-        Iterator<RakDatagramPacket> iterator = this.sentDatagrams.values().iterator();
-        while (iterator.hasNext()) {
-            RakDatagramPacket datagram = iterator.next();
-            if (datagram.getNextSend() <= curTime) {
-                int size = datagram.getSize();
-                if (transmissionBandwidth < size) {
-                    break;
-                }
-                transmissionBandwidth -= size;
+        int transmissionBandwidth = this.congestionController.getRetransmissionBandwidth();
 
-                if (!hasResent) {
-                    hasResent = true;
-                }
-                if (log.isTraceEnabled()) {
-                    log.trace("Stale datagram {} from {}", datagram.getSequenceIndex(), this.getRemoteAddress());
-                }
-                resendCount++;
-                iterator.remove();
-                this.sendDatagram(ctx, datagram, curTime, sent);
+        // Datagrams are ordered by their resend deadline, so we only ever look at the ones which are due.
+        RakDatagramPacket datagram;
+        while ((datagram = this.retransmissionQueue.peek()) != null && datagram.getNextSend() <= curTime) {
+            int size = datagram.getSize();
+            if (transmissionBandwidth < size) {
+                break;
             }
-        }
-        for (IntObjectMap.PrimitiveEntry<RakDatagramPacket> entry : sent.entries()) {
-            this.sentDatagrams.put(entry.key(), entry.value());
+            transmissionBandwidth -= size;
+
+            if (log.isTraceEnabled()) {
+                log.trace("Stale datagram {} from {}", datagram.getSequenceIndex(), this.getRemoteAddress());
+            }
+            resendCount++;
+            this.retransmissionQueue.poll();
+            this.sentDatagrams.remove(datagram.getSequenceIndex());
+            this.sendDatagram(ctx, datagram, curTime);
         }
 
-        if (hasResent) {
-            this.slidingWindow.onResend(this.datagramWriteIndex);
+        if (resendCount > 0) {
+            this.congestionController.onResend(this.datagramWriteIndex);
         }
 
         return resendCount;
@@ -592,7 +929,12 @@ public class RakSessionCodec extends ChannelDuplexHandler {
             return;
         }
 
-        int transmissionBandwidth = this.slidingWindow.getTransmissionBandwidth();
+        int transmissionBandwidth = this.congestionController.getTransmissionBandwidth();
+        boolean paceTokens = this.pacingInterval > 0 && !this.congestionController.isPacing();
+        if (paceTokens) {
+            transmissionBandwidth = Math.min(transmissionBandwidth, this.refillPacingTokens(curTime));
+        }
+        int availableBandwidth = transmissionBandwidth;
         RakDatagramPacket datagram = this.createDatagramPacket();
         datagram.setSendTime(curTime);
         EncapsulatedPacket packet;
@@ -604,11 +946,12 @@ public class RakSessionCodec extends ChannelDuplexHandler {
             }
 
             transmissionBandwidth -= size;
+            this.queuedBytes -= size;
             this.outgoingPackets.remove();
 
             // Send full datagram
             if (!datagram.tryAddPacket(packet, mtuSize)) {
-                this.sendDatagram(ctx, datagram, curTime, this.sentDatagrams);
+                this.sendDatagram(ctx, datagram, curTime);
 
                 datagram = this.createDatagramPacket();
                 datagram.setSendTime(curTime);
@@ -619,24 +962,34 @@ public class RakSessionCodec extends ChannelDuplexHandler {
         }
 
         if (!datagram.getPackets().isEmpty()) {
-            this.sendDatagram(ctx, datagram, curTime, this.sentDatagrams);
+            this.sendDatagram(ctx, datagram, curTime);
+        } else {
+            datagram.release();
+        }
+
+        if (!this.writable && this.queuedBytes < this.channel.config().getWriteBufferWaterMark().low()) {
+            this.setWritable(true);
+        }
+
+        if (paceTokens) {
+            this.pacingTokens -= availableBandwidth - transmissionBandwidth;
         }
     }
 
     private void sendImmediate(ChannelHandlerContext ctx, EncapsulatedPacket[] packets) {
-        long curTime = System.currentTimeMillis();
+        long curTime = this.clock.millis();
         for (EncapsulatedPacket packet : packets) {
             RakDatagramPacket datagram = this.createDatagramPacket();
             datagram.setSendTime(curTime);
             if (!datagram.tryAddPacket(packet, this.getMtu())) {
                 throw new IllegalArgumentException("Packet too large to fit in MTU (size: " + packet.getSize() + ", MTU: " + this.getMtu() + ")");
             }
-            this.sendDatagram(ctx, datagram, curTime, this.sentDatagrams);
+            this.sendDatagram(ctx, datagram, curTime);
         }
         ctx.flush();
     }
 
-    private void sendDatagram(ChannelHandlerContext ctx, RakDatagramPacket datagram, long time, IntObjectMap<RakDatagramPacket> sent) {
+    private void sendDatagram(ChannelHandlerContext ctx, RakDatagramPacket datagram, long time) {
         if (datagram.getPackets().isEmpty()) {
             throw new IllegalArgumentException("RakNetDatagram with no packets");
         }
@@ -648,15 +1001,20 @@ public class RakSessionCodec extends ChannelDuplexHandler {
 
         int oldIndex = datagram.getSequenceIndex();
         datagram.setSequenceIndex(this.datagramWriteIndex++);
+        if (oldIndex != -1) {
+            datagram.setRetransmitted(true);
+        }
+        this.congestionController.onSend(datagram);
 
         for (EncapsulatedPacket packet : datagram.getPackets()) {
             // Check if packet is reliable so it can be resent later if a NAK is received.
             if (packet.getReliability().isReliable()) {
-                datagram.setNextSend(time + this.slidingWindow.getRtoForRetransmission());
+                datagram.setNextSend(time + this.congestionController.getRtoForRetransmission());
                 if (oldIndex == -1) {
-                    this.slidingWindow.onReliableSend(datagram);
+                    this.congestionController.onReliableSend(datagram);
                 }
-                sent.put(datagram.getSequenceIndex(), datagram.retain()); // Keep for resending
+                this.sentDatagrams.put(datagram.getSequenceIndex(), datagram.retain()); // Keep for resending
+                this.retransmissionQueue.add(datagram);
                 break;
             }
         }
@@ -740,22 +1098,6 @@ public class RakSessionCodec extends ChannelDuplexHandler {
         return packets;
     }
 
-    private long getNextWeight(RakPriority priority) {
-        int priorityLevel = priority.ordinal();
-        long next = this.outgoingPacketNextWeights[priorityLevel];
-
-        if (!this.outgoingPackets.isEmpty()) {
-            if (next >= this.lastMinWeight) {
-                next = this.lastMinWeight + (1L << priorityLevel) * priorityLevel + priorityLevel;
-                this.outgoingPacketNextWeights[priorityLevel] = next + (1L << priorityLevel) * (priorityLevel + 1) + priorityLevel;
-            }
-        } else {
-            this.initHeapWeights();
-        }
-        this.lastMinWeight = next - (1L << priorityLevel) * priorityLevel + priorityLevel;
-        return next;
-    }
-
     public void disconnect() {
         this.disconnect(RakDisconnectReason.DISCONNECTED);
     }
@@ -830,13 +1172,13 @@ public class RakSessionCodec extends ChannelDuplexHandler {
     public void recalculatePongTime(long pingTime) {
         if (this.currentPingTime == pingTime) {
             this.lastPingTime = this.currentPingTime;
-            this.lastPongTime = System.currentTimeMillis();
+            this.lastPongTime = this.clock.millis();
         }
     }
 
     private void touch() {
         this.checkForClosed();
-        this.lastTouched = System.currentTimeMillis();
+        this.lastTouched = this.clock.millis();
     }
 
     public boolean isStale(long curTime) {
@@ -844,7 +1186,7 @@ public class RakSessionCodec extends ChannelDuplexHandler {
     }
 
     public boolean isStale() {
-        return this.isStale(System.currentTimeMillis());
+        return this.isStale(this.clock.millis());
     }
 
     public boolean isTimedOut(long curTime) {
@@ -852,7 +1194,7 @@ public class RakSessionCodec extends ChannelDuplexHandler {
     }
 
     public boolean isTimedOut() {
-        return this.isTimedOut(System.currentTimeMillis());
+        return this.isTimedOut(this.clock.millis());
     }
 
     public long getPing() {
@@ -860,11 +1202,26 @@ public class RakSessionCodec extends ChannelDuplexHandler {
     }
 
     public double getRTT() {
-        return this.slidingWindow.getRTT();
+        return this.congestionController.getRTT();
     }
 
     public int getMtu() {
-        return this.channel.config().getMtu() - UDP_HEADER_SIZE - (this.getRemoteAddress().getAddress() instanceof Inet6Address ? 40 : 20);
+        return this.channel.config().getMtu() - UDP_HEADER_SIZE - (this.getRemoteAddress().getAddress() instanceof Inet6Address ? 40 : 20) - this.fecOverhead;
+    }
+
+    /**
+     * Enables parity datagrams negotiated during the handshake. Datagrams of sessions with {@link RakChannelOption#RAK_FEC_GROUP_SIZE}
+     * set are {@link RakConstants#FEC_PARITY_OVERHEAD} bytes smaller from the start, so the parity datagram of a group still fits in the MTU.
+     * Rebuilt datagrams are held back for the same reorder window as NAKs.
+     *
+     * @param groupSize number of datagrams per parity datagram
+     */
+    public void enableFec(int groupSize) {
+        RakDatagramCodec datagramCodec = this.ctx().pipeline().get(RakDatagramCodec.class);
+        if (datagramCodec == null || groupSize < 2 || this.fecOverhead == 0) {
+            return;
+        }
+        datagramCodec.setFecGroupSize(groupSize, this.nakReorderDatagrams, this.nakReorderDelay);
     }
 
     public RakChannelMetrics getMetrics() {
@@ -875,7 +1232,7 @@ public class RakSessionCodec extends ChannelDuplexHandler {
         return (InetSocketAddress) this.channel.remoteAddress();
     }
 
-    protected Queue<IntRange> getAcknowledgeQueue(boolean nack) {
+    protected IntRangeQueue getAcknowledgeQueue(boolean nack) {
         return nack ? this.incomingNaks : this.incomingAcks;
     }
 
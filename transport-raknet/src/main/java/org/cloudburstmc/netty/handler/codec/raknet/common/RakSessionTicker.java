@@ -0,0 +1,161 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.handler.codec.raknet.common;
+
+import io.netty.channel.EventLoop;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.cloudburstmc.netty.channel.raknet.RakCachedClock;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticks every {@link RakSessionCodec} registered on one event loop from a single scheduled task,
+ * so the event loop does not have to maintain one scheduled task per session.
+ * <p>
+ * There is one ticker per event loop thread and flush interval. All state is confined to the event loop thread.
+ */
+final class RakSessionTicker implements Runnable {
+
+    private static final FastThreadLocal<IntObjectMap<RakSessionTicker>> TICKERS = new FastThreadLocal<IntObjectMap<RakSessionTicker>>() {
+        @Override
+        protected IntObjectMap<RakSessionTicker> initialValue() {
+            return new IntObjectHashMap<>();
+        }
+    };
+
+    private final EventLoop eventLoop;
+    private final int interval;
+    private RakSessionCodec[] sessions = new RakSessionCodec[16];
+    private int size;
+    private int removed;
+    private boolean ticking;
+    private ScheduledFuture<?> future;
+
+    private RakSessionTicker(EventLoop eventLoop, int interval) {
+        this.eventLoop = eventLoop;
+        this.interval = interval;
+    }
+
+    /**
+     * Returns the ticker of the given event loop for the given interval. Must be called from the event loop.
+     */
+    static RakSessionTicker get(EventLoop eventLoop, int interval) {
+        if (!eventLoop.inEventLoop()) {
+            throw new IllegalStateException("Session ticker must be accessed from its event loop");
+        }
+
+        IntObjectMap<RakSessionTicker> tickers = TICKERS.get();
+        RakSessionTicker ticker = tickers.get(interval);
+        if (ticker == null) {
+            tickers.put(interval, ticker = new RakSessionTicker(eventLoop, interval));
+        }
+        return ticker;
+    }
+
+    void register(RakSessionCodec session) {
+        if (session.tickerIndex != -1) {
+            throw new IllegalStateException("Session is already registered");
+        }
+
+        if (this.size == this.sessions.length) {
+            this.sessions = Arrays.copyOf(this.sessions, this.size << 1);
+        }
+        session.tickerIndex = this.size;
+        this.sessions[this.size++] = session;
+
+        if (this.future == null) {
+            this.future = this.eventLoop.scheduleAtFixedRate(this, 0, this.interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void deregister(RakSessionCodec session) {
+        if (!this.eventLoop.inEventLoop()) {
+            this.eventLoop.execute(() -> this.deregister(session));
+            return;
+        }
+
+        int index = session.tickerIndex;
+        if (index == -1 || this.sessions[index] != session) {
+            return;
+        }
+        session.tickerIndex = -1;
+
+        if (this.ticking) {
+            // Do not move sessions around while we iterate over them
+            this.sessions[index] = null;
+            this.removed++;
+            return;
+        }
+
+        int last = --this.size;
+        if (index != last) {
+            RakSessionCodec moved = this.sessions[last];
+            moved.tickerIndex = index;
+            this.sessions[index] = moved;
+        }
+        this.sessions[last] = null;
+        this.cancelIfEmpty();
+    }
+
+    @Override
+    public void run() {
+        this.ticking = true;
+        // All sessions ticked by this run share one clock read
+        RakCachedClock.enter();
+        try {
+            // Sessions registered while ticking are appended and ticked in this run as well
+            for (int i = 0; i < this.size; i++) {
+                RakSessionCodec session = this.sessions[i];
+                if (session != null) {
+                    session.tryTick();
+                }
+            }
+        } finally {
+            RakCachedClock.exit();
+            this.ticking = false;
+            if (this.removed > 0) {
+                this.compact();
+            }
+            this.cancelIfEmpty();
+        }
+    }
+
+    private void compact() {
+        int index = 0;
+        for (int i = 0; i < this.size; i++) {
+            RakSessionCodec session = this.sessions[i];
+            if (session != null) {
+                session.tickerIndex = index;
+                this.sessions[index++] = session;
+            }
+        }
+        Arrays.fill(this.sessions, index, this.size, null);
+        this.size = index;
+        this.removed = 0;
+    }
+
+    private void cancelIfEmpty() {
+        if (this.size == 0 && this.future != null) {
+            this.future.cancel(false);
+            this.future = null;
+        }
+    }
+}
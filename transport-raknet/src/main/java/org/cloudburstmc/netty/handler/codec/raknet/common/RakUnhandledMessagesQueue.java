@@ -63,10 +63,16 @@ public class RakUnhandledMessagesQueue extends SimpleChannelInboundHandler<Encap
         }
 
         EncapsulatedPacket message;
+        boolean read = false;
         while ((message = this.messages.poll()) != null) {
             ctx.fireChannelRead(message);
+            read = true;
         }
 
+        if (read) {
+            // Queued messages are not part of a read, complete it so they are delivered
+            ctx.fireChannelReadComplete();
+        }
         ctx.pipeline().remove(this);
     }
 
@@ -45,6 +45,7 @@ public class RakServerOnlineInitialHandler extends SimpleChannelInboundHandler<E
     private static final InternalLogger log = InternalLoggerFactory.getInstance(RakServerOnlineInitialHandler.class);
 
     private final RakChildChannel channel;
+    private int fecGroupSize;
 
     public RakServerOnlineInitialHandler(RakChildChannel channel) {
         this.channel = channel;
@@ -66,6 +67,10 @@ public class RakServerOnlineInitialHandler extends SimpleChannelInboundHandler<E
                 if (metrics != null) metrics.connectionInitPacket(this.channel.remoteAddress(), ID_NEW_INCOMING_CONNECTION);
 
                 buf.skipBytes(1);
+                if (this.fecGroupSize > 0) {
+                    // The client has seen the accepted reply, so it can tell parity datagrams apart now
+                    ctx.pipeline().get(RakSessionCodec.class).enableFec(this.fecGroupSize);
+                }
                 // We have connected and no longer need this handler
                 ctx.pipeline().remove(this);
                 channel.eventLoop().execute(() -> {
@@ -86,14 +91,23 @@ public class RakServerOnlineInitialHandler extends SimpleChannelInboundHandler<E
         long timestamp = buffer.readLong();
         boolean security = buffer.readBoolean();
 
+        int fecGroupSize = 0;
+        if (buffer.isReadable(5) && buffer.readInt() == FEC_EXTENSION_MAGIC) {
+            // The client supports parity datagrams, use the smaller group size of both sides
+            fecGroupSize = Math.min(buffer.readUnsignedByte(), this.channel.config().getOption(RakChannelOption.RAK_FEC_GROUP_SIZE));
+            if (fecGroupSize < 2) {
+                fecGroupSize = 0;
+            }
+        }
+
         if (serverGuid != guid || security) {
             this.sendConnectionRequestFailed(ctx, guid);
         } else {
-            this.sendConnectionRequestAccepted(ctx, timestamp);
+            this.sendConnectionRequestAccepted(ctx, timestamp, fecGroupSize);
         }
     }
 
-    private void sendConnectionRequestAccepted(ChannelHandlerContext ctx, long time) {
+    private void sendConnectionRequestAccepted(ChannelHandlerContext ctx, long time, int fecGroupSize) {
         InetSocketAddress address = this.channel.remoteAddress();
         boolean ipv6 = address.getAddress() instanceof Inet6Address;
         ByteBuf outBuf = ctx.alloc().ioBuffer(ipv6 ? 628 : 166);
@@ -105,9 +119,15 @@ public class RakServerOnlineInitialHandler extends SimpleChannelInboundHandler<E
             RakUtils.writeAddress(outBuf, socketAddress);
         }
         outBuf.writeLong(time);
-        outBuf.writeLong(System.currentTimeMillis());
+        outBuf.writeLong(this.channel.config().getOption(RakChannelOption.RAK_CLOCK).millis());
+        if (fecGroupSize > 0) {
+            outBuf.writeInt(FEC_EXTENSION_MAGIC);
+            outBuf.writeByte(fecGroupSize);
+        }
 
         ctx.writeAndFlush(new RakMessage(outBuf, RakReliability.UNRELIABLE, RakPriority.IMMEDIATE));
+        // Parity is enabled once NEW_INCOMING_CONNECTION arrives, the accepted reply may be lost or overtaken
+        this.fecGroupSize = fecGroupSize;
     }
 
     private void sendConnectionRequestFailed(ChannelHandlerContext ctx, long guid) {
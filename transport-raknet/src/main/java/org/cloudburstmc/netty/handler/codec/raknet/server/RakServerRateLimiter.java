@@ -23,6 +23,7 @@ import io.netty.util.concurrent.ScheduledFuture;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import org.cloudburstmc.netty.channel.raknet.RakServerChannel;
+import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
 import org.cloudburstmc.netty.channel.raknet.config.RakServerMetrics;
 
 import java.net.InetAddress;
@@ -71,7 +72,7 @@ public class RakServerRateLimiter extends SimpleChannelInboundHandler<DatagramPa
     }
 
     private void onBlockedTick() {
-        long currTime = System.currentTimeMillis();
+        long currTime = this.channel.config().getOption(RakChannelOption.RAK_CLOCK).millis();
 
         RakServerMetrics metrics = this.channel.config().getMetrics();
 
@@ -94,7 +95,7 @@ public class RakServerRateLimiter extends SimpleChannelInboundHandler<DatagramPa
         }
 
         long millis = unit.toMillis(time);
-        this.blockedConnections.put(address, System.currentTimeMillis() + millis);
+        this.blockedConnections.put(address, this.channel.config().getOption(RakChannelOption.RAK_CLOCK).millis() + millis);
 
         if (this.channel.config().getMetrics() != null) {
             this.channel.config().getMetrics().addressBlocked(address);
@@ -20,6 +20,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.socket.DatagramPacket;
+import org.cloudburstmc.netty.channel.raknet.RakCachedClock;
 import org.cloudburstmc.netty.channel.raknet.RakChildChannel;
 import org.cloudburstmc.netty.channel.raknet.RakServerChannel;
 import org.cloudburstmc.netty.channel.raknet.config.RakChannelMetrics;
@@ -57,7 +58,12 @@ public class RakServerRouteHandler extends ChannelDuplexHandler {
             // In this case remote address is already known from ChannelHandlerContext
             // so we can pass only payload.
             ByteBuf buffer = packet.content().retain();
-            channel.rakPipeline().fireChannelRead(buffer).fireChannelReadComplete();
+            RakCachedClock.enter();
+            try {
+                channel.rakPipeline().fireChannelRead(buffer).fireChannelReadComplete();
+            } finally {
+                RakCachedClock.exit();
+            }
         } finally {
             packet.release();
         }
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.util;
+
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+/**
+ * Set of FIFO queues served by a deficit round-robin scheduler.
+ * <p>
+ * Each queue earns its quantum of bytes whenever the scheduler visits it and may send elements as long as their size
+ * fits in the accumulated deficit. Under saturation every queue therefore gets a share of the bandwidth proportional
+ * to its quantum, and no queue with a positive quantum is starved. Enqueueing and dequeueing are O(1).
+ * <p>
+ * {@link #peek()} selects the next element without consuming any deficit, so callers may peek, decide that the
+ * element does not fit and peek again later to get the same element.
+ */
+public class DeficitRoundRobinQueue<E> {
+
+    private final int[] quanta;
+    private final ToIntFunction<E> sizeFunction;
+    private final ArrayDeque<E>[] queues;
+    private final int[] deficits;
+    private int current;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public DeficitRoundRobinQueue(int[] quanta, ToIntFunction<E> sizeFunction) {
+        Objects.requireNonNull(quanta, "quanta");
+        Objects.requireNonNull(sizeFunction, "sizeFunction");
+        for (int quantum : quanta) {
+            if (quantum <= 0) {
+                throw new IllegalArgumentException("Quantum must be positive: " + quantum);
+            }
+        }
+        this.quanta = quanta.clone();
+        this.sizeFunction = sizeFunction;
+        // Queues are allocated on first use
+        this.queues = new ArrayDeque[quanta.length];
+        this.deficits = new int[quanta.length];
+        this.deficits[0] = this.quanta[0];
+    }
+
+    public void offer(int queue, E element) {
+        Objects.requireNonNull(element, "element");
+        this.queue(queue).addLast(element);
+        this.size++;
+    }
+
+    public void offer(int queue, E[] elements) {
+        ArrayDeque<E> deque = this.queue(queue);
+        for (E element : elements) {
+            deque.addLast(Objects.requireNonNull(element, "element"));
+        }
+        this.size += elements.length;
+    }
+
+    private ArrayDeque<E> queue(int queue) {
+        ArrayDeque<E> deque = this.queues[queue];
+        if (deque == null) {
+            deque = this.queues[queue] = new ArrayDeque<>();
+        }
+        return deque;
+    }
+
+    /**
+     * Returns the element which is scheduled next, without removing it.
+     *
+     * @return next element or null if all queues are empty
+     */
+    public E peek() {
+        if (this.size == 0) {
+            return null;
+        }
+
+        for (; ; ) {
+            ArrayDeque<E> deque = this.queues[this.current];
+            if (deque == null || deque.isEmpty()) {
+                // Empty queues must not bank their deficit
+                this.deficits[this.current] = 0;
+            } else {
+                E element = deque.peekFirst();
+                if (this.sizeFunction.applyAsInt(element) <= this.deficits[this.current]) {
+                    return element;
+                }
+            }
+            this.current = this.current + 1 == this.queues.length ? 0 : this.current + 1;
+            this.deficits[this.current] += this.quanta[this.current];
+        }
+    }
+
+    /**
+     * Removes the element returned by the last {@link #peek()} and charges its size to its queue.
+     */
+    public void remove() {
+        if (this.peek() == null) {
+            throw new NoSuchElementException("Queue is empty");
+        }
+
+        ArrayDeque<E> deque = this.queues[this.current];
+        E element = deque.pollFirst();
+        this.size--;
+        if (deque.isEmpty()) {
+            this.deficits[this.current] = 0;
+        } else {
+            this.deficits[this.current] -= this.sizeFunction.applyAsInt(element);
+        }
+    }
+
+    public E poll() {
+        E element = this.peek();
+        if (element != null) {
+            this.remove();
+        }
+        return element;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+}
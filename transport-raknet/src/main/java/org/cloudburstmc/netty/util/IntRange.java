@@ -1,31 +0,0 @@
-/*
- * Copyright 2022 CloudburstMC
- *
- * CloudburstMC licenses this file to you under the Apache License,
- * version 2.0 (the "License"); you may not use this file except in compliance
- * with the License. You may obtain a copy of the License at:
- *
- *   https://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
- * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
- * License for the specific language governing permissions and limitations
- * under the License.
- */
-
-package org.cloudburstmc.netty.util;
-
-public class IntRange {
-    public int start;
-    public int end;
-
-    public IntRange(int num) {
-        this(num, num);
-    }
-
-    public IntRange(int start, int end) {
-        this.start = start;
-        this.end = end;
-    }
-}
\ No newline at end of file
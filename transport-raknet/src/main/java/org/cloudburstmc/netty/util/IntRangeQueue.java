@@ -0,0 +1,115 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * FIFO queue of inclusive int ranges backed by a primitive ring buffer, so queueing a range
+ * does not allocate an object per range.
+ */
+public class IntRangeQueue {
+
+    private int[] ranges;
+    private int mask;
+    private int head;
+    private int size;
+
+    public IntRangeQueue() {
+        this(16);
+    }
+
+    public IntRangeQueue(int initialCapacity) {
+        int capacity = RakUtils.powerOfTwoCeiling(Math.max(initialCapacity, 2));
+        this.ranges = new int[capacity << 1];
+        this.mask = capacity - 1;
+    }
+
+    public void offer(int start, int end) {
+        if (this.size > this.mask) {
+            this.resize((this.mask + 1) << 1);
+        }
+
+        int idx = ((this.head + this.size) & this.mask) << 1;
+        this.ranges[idx] = start;
+        this.ranges[idx + 1] = end;
+        this.size++;
+    }
+
+    public int peekStart() {
+        this.checkNotEmpty();
+        return this.ranges[this.head << 1];
+    }
+
+    public int peekEnd() {
+        this.checkNotEmpty();
+        return this.ranges[(this.head << 1) + 1];
+    }
+
+    /**
+     * Removes the first range of the queue.
+     */
+    public void remove() {
+        this.checkNotEmpty();
+        this.head = (this.head + 1) & this.mask;
+        this.size--;
+    }
+
+    public int peekLastEnd() {
+        this.checkNotEmpty();
+        return this.ranges[(((this.head + this.size - 1) & this.mask) << 1) + 1];
+    }
+
+    /**
+     * Extends or shrinks the last range of the queue.
+     */
+    public void setLastEnd(int end) {
+        this.checkNotEmpty();
+        this.ranges[(((this.head + this.size - 1) & this.mask) << 1) + 1] = end;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        this.head = 0;
+        this.size = 0;
+    }
+
+    private void checkNotEmpty() {
+        if (this.size == 0) {
+            throw new NoSuchElementException("Queue is empty");
+        }
+    }
+
+    private void resize(int capacity) {
+        int[] newRanges = new int[capacity << 1];
+        for (int i = 0; i < this.size; i++) {
+            int idx = ((this.head + i) & this.mask) << 1;
+            newRanges[i << 1] = this.ranges[idx];
+            newRanges[(i << 1) + 1] = this.ranges[idx + 1];
+        }
+        this.ranges = newRanges;
+        this.mask = capacity - 1;
+        this.head = 0;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.util;
+
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.Arrays;
+
+/**
+ * Reorder buffer of one ordering channel, indexed by the 24-bit ordering index of the packets.
+ * <p>
+ * Packets ahead of the read index are stored at {@code index & mask}, so inserting, draining and detecting duplicates
+ * is O(1). The buffer is only allocated once a packet has to be stored, grows on demand up to the configured maximum
+ * window size and can be released with {@link #trim()} while empty.
+ */
+public class OrderingWindow<E> {
+
+    private static final int INDEX_MASK = 0xFFFFFF;
+
+    private final int initialCapacity;
+    private final int maxCapacity;
+    private Object[] elements;
+    private int mask = -1;
+    private int readIndex;
+    private int size;
+
+    public OrderingWindow(int initialCapacity, int maxCapacity) {
+        this.maxCapacity = RakUtils.powerOfTwoCeiling(Math.max(maxCapacity, 2));
+        this.initialCapacity = Math.min(RakUtils.powerOfTwoCeiling(Math.max(initialCapacity, 2)), this.maxCapacity);
+    }
+
+    /**
+     * @return signed distance of the given ordering index to the read index, negative if it was already read
+     */
+    public int offset(int index) {
+        return ((index - this.readIndex) << 8) >> 8;
+    }
+
+    /**
+     * @return whether a packet with the given offset fits into the window
+     */
+    public boolean fits(int offset) {
+        return offset >= 0 && offset < this.maxCapacity;
+    }
+
+    /**
+     * Stores an element which is ahead of the read index.
+     *
+     * @return false if an element with this index is already stored
+     */
+    public boolean put(int index, E element) {
+        int offset = this.offset(index);
+        if (!this.fits(offset)) {
+            throw new IllegalArgumentException("Ordering index " + index + " is outside of the window");
+        }
+
+        if (this.elements == null) {
+            int capacity = Math.max(this.initialCapacity, RakUtils.powerOfTwoCeiling(offset + 1));
+            this.elements = new Object[capacity];
+            this.mask = capacity - 1;
+        } else if (offset > this.mask) {
+            this.resize(RakUtils.powerOfTwoCeiling(offset + 1));
+        }
+
+        int idx = index & this.mask;
+        if (this.elements[idx] != null) {
+            return false;
+        }
+        this.elements[idx] = element;
+        this.size++;
+        return true;
+    }
+
+    /**
+     * Moves the read index past an element which was handled without being stored.
+     */
+    public void advance() {
+        this.readIndex = (this.readIndex + 1) & INDEX_MASK;
+    }
+
+    /**
+     * Removes the element at the read index and advances the read index.
+     *
+     * @return the element or null if it has not been received yet
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        if (this.size == 0) {
+            return null;
+        }
+
+        int idx = this.readIndex & this.mask;
+        E element = (E) this.elements[idx];
+        if (element != null) {
+            this.elements[idx] = null;
+            this.size--;
+            this.advance();
+        }
+        return element;
+    }
+
+    public int getReadIndex() {
+        return this.readIndex;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Releases the buffer if no element is stored.
+     *
+     * @return whether the buffer has been released
+     */
+    public boolean trim() {
+        if (this.size != 0 || this.elements == null) {
+            return false;
+        }
+        this.elements = null;
+        this.mask = -1;
+        return true;
+    }
+
+    /**
+     * Removes and releases all stored elements.
+     */
+    public void clear() {
+        if (this.elements == null) {
+            return;
+        }
+
+        for (int i = 0; i < this.elements.length; i++) {
+            ReferenceCountUtil.release(this.elements[i]);
+        }
+        Arrays.fill(this.elements, null);
+        this.size = 0;
+    }
+
+    private void resize(int capacity) {
+        Object[] newElements = new Object[capacity];
+        int newMask = capacity - 1;
+        for (int i = 0; i <= this.mask; i++) {
+            int index = (this.readIndex + i) & INDEX_MASK;
+            newElements[index & newMask] = this.elements[index & this.mask];
+        }
+        this.elements = newElements;
+        this.mask = newMask;
+    }
+}
@@ -17,6 +17,7 @@
 package org.cloudburstmc.netty.util;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.DefaultChannelPipeline;
@@ -26,7 +27,6 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.*;
-import java.util.Queue;
 
 public class RakUtils {
 
@@ -139,15 +139,16 @@ public class RakUtils {
         }
     }
 
-    public static int writeAckEntries(ByteBuf buffer, Queue<IntRange> ackQueue, int mtu) {
+    public static int writeAckEntries(ByteBuf buffer, IntRangeQueue ackQueue, int mtu) {
         int startIndex = buffer.writerIndex();
         buffer.writeZero(2);
         mtu -= 2; // Skip entries size (short)
 
         int count = 0;
-        IntRange ackRange;
-        while ((ackRange = ackQueue.peek()) != null) {
-            boolean singleton = ackRange.start == ackRange.end;
+        while (!ackQueue.isEmpty()) {
+            int start = ackQueue.peekStart();
+            int end = ackQueue.peekEnd();
+            boolean singleton = start == end;
             int size = singleton ? 4 : 7;
             if (mtu < size) {
                 break;
@@ -157,9 +158,9 @@ public class RakUtils {
             mtu -= size;
 
             buffer.writeBoolean(singleton);
-            buffer.writeMediumLE(ackRange.start);
+            buffer.writeMediumLE(start);
             if (!singleton) {
-                buffer.writeMediumLE(ackRange.end);
+                buffer.writeMediumLE(end);
             }
             ackQueue.remove();
         }
@@ -186,6 +187,24 @@ public class RakUtils {
         return value;
     }
 
+    /**
+     * Returns a buffer holding the readable bytes of the given buffer in contiguous memory. The given buffer is returned
+     * as is if it already is contiguous, otherwise its bytes are copied and it is released.
+     */
+    public static ByteBuf consolidate(ByteBuf buffer, ByteBufAllocator alloc) {
+        if (buffer.nioBufferCount() == 1) {
+            return buffer;
+        }
+
+        try {
+            ByteBuf contiguous = alloc.ioBuffer(buffer.readableBytes());
+            contiguous.writeBytes(buffer, buffer.readerIndex(), buffer.readableBytes());
+            return contiguous;
+        } finally {
+            buffer.release();
+        }
+    }
+
     public static DatagramPacket datagramReply(ByteBuf buf, DatagramPacket request) {
         return new DatagramPacket(buf, request.sender(), request.recipient());
     }
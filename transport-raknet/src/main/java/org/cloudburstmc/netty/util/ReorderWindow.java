@@ -0,0 +1,171 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.cloudburstmc.netty.util;
+
+/**
+ * Window of missing datagram sequence indexes which are not reported as lost yet.
+ * <p>
+ * Datagrams which arrive out of order remove themselves from the window before they are reported,
+ * so only gaps which persist long enough become NAKs. Missing indexes are added in ascending order,
+ * which keeps the window ordered by detection time as well.
+ */
+public class ReorderWindow {
+
+    private static final long RECEIVED = Long.MIN_VALUE;
+
+    private final int maxCapacity;
+    private long[] times;
+    private int mask;
+    private int start;
+    private int end;
+    private int size;
+
+    public ReorderWindow() {
+        this(64, 4096);
+    }
+
+    public ReorderWindow(int initialCapacity, int maxCapacity) {
+        int capacity = RakUtils.powerOfTwoCeiling(Math.max(initialCapacity, 2));
+        this.times = new long[capacity];
+        this.mask = capacity - 1;
+        this.maxCapacity = maxCapacity;
+    }
+
+    /**
+     * Adds the inclusive range of missing indexes, which have been detected at the given time.
+     *
+     * @return false if the range does not fit into the window
+     */
+    public boolean addMissing(int start, int end, long time) {
+        if (this.size == 0) {
+            this.start = start;
+            this.end = start;
+        } else if (start < this.end) {
+            throw new IllegalArgumentException("Missing index " + start + " is behind window end " + this.end);
+        }
+
+        int span = end - this.start + 1;
+        if (span > this.maxCapacity) {
+            return false;
+        }
+        if (span > this.times.length) {
+            this.resize(RakUtils.powerOfTwoCeiling(span));
+        }
+
+        for (int i = this.end; i < start; i++) {
+            this.times[i & this.mask] = RECEIVED;
+        }
+        for (int i = start; i <= end; i++) {
+            this.times[i & this.mask] = time;
+        }
+        this.size += end - start + 1;
+        this.end = end + 1;
+        return true;
+    }
+
+    /**
+     * Removes a missing index because its datagram has arrived.
+     *
+     * @return true if the index was still waiting to be reported
+     */
+    public boolean remove(int index) {
+        if (index < this.start || index >= this.end) {
+            return false;
+        }
+
+        int idx = index & this.mask;
+        if (this.times[idx] == RECEIVED) {
+            return false;
+        }
+        this.times[idx] = RECEIVED;
+
+        if (--this.size == 0) {
+            this.start = this.end;
+        }
+        return true;
+    }
+
+    /**
+     * Moves all missing indexes which are at or before {@code expiredIndex} or have been detected at or before
+     * {@code expiredTime} to the given queue, merging consecutive indexes into ranges.
+     *
+     * @return number of indexes moved
+     */
+    public int poll(IntRangeQueue queue, int expiredIndex, long expiredTime) {
+        int count = 0;
+        while (this.size > 0) {
+            long time = this.times[this.start & this.mask];
+            if (time == RECEIVED) {
+                this.start++;
+                continue;
+            }
+            if (this.start > expiredIndex && time > expiredTime) {
+                break;
+            }
+
+            if (!queue.isEmpty() && queue.peekLastEnd() == this.start - 1) {
+                queue.setLastEnd(this.start);
+            } else {
+                queue.offer(this.start, this.start);
+            }
+            this.start++;
+            this.size--;
+            count++;
+        }
+
+        if (this.size == 0) {
+            this.start = this.end;
+        }
+        return count;
+    }
+
+    /**
+     * Moves all missing indexes to the given queue.
+     *
+     * @return number of indexes moved
+     */
+    public int pollAll(IntRangeQueue queue) {
+        return this.poll(queue, Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return number of missing indexes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        this.start = this.end;
+        this.size = 0;
+    }
+
+    private void resize(int capacity) {
+        long[] newTimes = new long[capacity];
+        int newMask = capacity - 1;
+        for (int i = this.start; i < this.end; i++) {
+            newTimes[i & newMask] = this.times[i & this.mask];
+        }
+        this.times = newTimes;
+        this.mask = newMask;
+    }
+}
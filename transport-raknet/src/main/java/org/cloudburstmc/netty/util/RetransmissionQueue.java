@@ -0,0 +1,145 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.util;
+
+import org.cloudburstmc.netty.channel.raknet.packet.RakDatagramPacket;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of in-flight datagrams ordered by {@link RakDatagramPacket#getNextSend()}.
+ * <p>
+ * Each datagram remembers its own position in the heap, so acknowledged datagrams can be removed
+ * in O(log n) without searching. The queue does not hold a reference count of its elements.
+ */
+public class RetransmissionQueue {
+
+    private RakDatagramPacket[] heap;
+    private int size;
+
+    public RetransmissionQueue() {
+        this(16);
+    }
+
+    public RetransmissionQueue(int initialCapacity) {
+        this.heap = new RakDatagramPacket[Math.max(initialCapacity, 2)];
+    }
+
+    public void add(RakDatagramPacket datagram) {
+        if (datagram.getRetransmissionIndex() != -1) {
+            throw new IllegalArgumentException("Datagram is already queued");
+        }
+
+        if (this.size == this.heap.length) {
+            this.heap = Arrays.copyOf(this.heap, this.size << 1);
+        }
+        this.siftUp(this.size++, datagram);
+    }
+
+    public boolean remove(RakDatagramPacket datagram) {
+        int index = datagram.getRetransmissionIndex();
+        if (index < 0 || index >= this.size || this.heap[index] != datagram) {
+            return false;
+        }
+        this.removeAt(index);
+        return true;
+    }
+
+    public RakDatagramPacket peek() {
+        return this.size == 0 ? null : this.heap[0];
+    }
+
+    public RakDatagramPacket poll() {
+        if (this.size == 0) {
+            return null;
+        }
+        RakDatagramPacket datagram = this.heap[0];
+        this.removeAt(0);
+        return datagram;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.heap[i].setRetransmissionIndex(-1);
+            this.heap[i] = null;
+        }
+        this.size = 0;
+    }
+
+    private void removeAt(int index) {
+        RakDatagramPacket removed = this.heap[index];
+        removed.setRetransmissionIndex(-1);
+
+        int last = --this.size;
+        RakDatagramPacket moved = this.heap[last];
+        this.heap[last] = null;
+        if (index == last) {
+            return;
+        }
+
+        this.siftDown(index, moved);
+        if (this.heap[index] == moved) {
+            this.siftUp(index, moved);
+        }
+    }
+
+    private void siftUp(int index, RakDatagramPacket datagram) {
+        long nextSend = datagram.getNextSend();
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            RakDatagramPacket parentDatagram = this.heap[parent];
+            if (parentDatagram.getNextSend() <= nextSend) {
+                break;
+            }
+            this.set(index, parentDatagram);
+            index = parent;
+        }
+        this.set(index, datagram);
+    }
+
+    private void siftDown(int index, RakDatagramPacket datagram) {
+        long nextSend = datagram.getNextSend();
+        int half = this.size >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            RakDatagramPacket childDatagram = this.heap[child];
+            int right = child + 1;
+            if (right < this.size && this.heap[right].getNextSend() < childDatagram.getNextSend()) {
+                childDatagram = this.heap[child = right];
+            }
+            if (nextSend <= childDatagram.getNextSend()) {
+                break;
+            }
+            this.set(index, childDatagram);
+            index = child;
+        }
+        this.set(index, datagram);
+    }
+
+    private void set(int index, RakDatagramPacket datagram) {
+        this.heap[index] = datagram;
+        datagram.setRetransmissionIndex(index);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.util;
+
+import java.util.Arrays;
+
+/**
+ * Ring buffer of elements indexed by a monotonically increasing sequence number.
+ * <p>
+ * The buffer spans from the lowest occupied sequence number ({@link #start()}) to one past the highest
+ * ({@link #end()}) and grows when that span exceeds its capacity. Lookups outside the span are rejected
+ * without touching the buffer, which lets callers clamp arbitrary ranges to the span.
+ */
+public class SequenceWindow<E> {
+
+    private Object[] elements;
+    private int mask;
+    private int start;
+    private int end;
+    private int size;
+
+    public SequenceWindow() {
+        this(64);
+    }
+
+    public SequenceWindow(int initialCapacity) {
+        int capacity = RakUtils.powerOfTwoCeiling(Math.max(initialCapacity, 2));
+        this.elements = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public void put(int index, E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+
+        if (this.size == 0) {
+            this.start = index;
+            this.end = index;
+        } else if (index - this.start < 0) {
+            throw new IllegalArgumentException("Sequence index " + index + " is behind window start " + this.start);
+        }
+
+        if (index - this.start >= this.elements.length) {
+            this.resize(RakUtils.powerOfTwoCeiling(index - this.start + 1));
+        }
+
+        int idx = index & this.mask;
+        if (this.elements[idx] != null) {
+            throw new IllegalArgumentException("Sequence index " + index + " is already occupied");
+        }
+        this.elements[idx] = element;
+        this.size++;
+
+        if (index - this.end >= 0) {
+            this.end = index + 1;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (!this.contains(index)) {
+            return null;
+        }
+        return (E) this.elements[index & this.mask];
+    }
+
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        if (!this.contains(index)) {
+            return null;
+        }
+
+        int idx = index & this.mask;
+        E element = (E) this.elements[idx];
+        if (element == null) {
+            return null;
+        }
+        this.elements[idx] = null;
+
+        if (--this.size == 0) {
+            this.start = this.end;
+        } else if (index == this.start) {
+            // Advance past acknowledged or never occupied slots.
+            while (this.elements[this.start & this.mask] == null) {
+                this.start++;
+            }
+        }
+        return element;
+    }
+
+    private boolean contains(int index) {
+        return index - this.start >= 0 && index - this.end < 0;
+    }
+
+    /**
+     * @return the lowest sequence number that may be occupied
+     */
+    public int start() {
+        return this.start;
+    }
+
+    /**
+     * @return one past the highest sequence number that may be occupied
+     */
+    public int end() {
+        return this.end;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(this.elements, null);
+        this.start = this.end;
+        this.size = 0;
+    }
+
+    private void resize(int capacity) {
+        Object[] newElements = new Object[capacity];
+        int newMask = capacity - 1;
+        for (int i = this.start; i - this.end < 0; i++) {
+            newElements[i & newMask] = this.elements[i & this.mask];
+        }
+        this.elements = newElements;
+        this.mask = newMask;
+    }
+}
@@ -18,22 +18,30 @@ package org.cloudburstmc.netty.util;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.util.AbstractReferenceCounted;
 import io.netty.util.IllegalReferenceCountException;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.ReferenceCounted;
-import io.netty.util.collection.IntObjectHashMap;
-import io.netty.util.collection.IntObjectMap;
 import org.cloudburstmc.netty.channel.raknet.packet.EncapsulatedPacket;
 
+import java.util.Arrays;
 import java.util.Objects;
 
 public class SplitPacketHelper extends AbstractReferenceCounted {
-    private final IntObjectMap<EncapsulatedPacket> packets;
-    private final int expectedLength;
-    private final long created = System.currentTimeMillis();
+    private static final int INITIAL_CAPACITY = 16;
 
-    public SplitPacketHelper(long expectedLength) {
+    private EncapsulatedPacket[] packets;
+    private final int partId;
+    private final int expectedLength;
+    private final long created;
+    private int received;
+    private int bufferedBytes;
+
+    /**
+     * @param created creation time of the helper, from the same clock which is later passed to {@link #expired(long)}
+     */
+    public SplitPacketHelper(int partId, long expectedLength, long created) {
         if (expectedLength < 2) {
             throw new IllegalArgumentException("expectedLength must be greater than 1");
         }
@@ -42,64 +50,106 @@ public class SplitPacketHelper extends AbstractReferenceCounted {
             throw new IllegalArgumentException("expectedLength must be <= Integer.MAX_VALUE");
         }
 
+        this.partId = partId;
+        this.created = created;
         this.expectedLength = (int) expectedLength;
-        this.packets = new IntObjectHashMap<>();
+        // The part count is sent by the remote peer, so only allocate slots for parts which have actually been received
+        this.packets = new EncapsulatedPacket[Math.min(this.expectedLength, INITIAL_CAPACITY)];
+    }
+
+    public EncapsulatedPacket add(EncapsulatedPacket packet, ByteBufAllocator alloc) {
+        return this.add(packet, alloc, false);
     }
 
-public EncapsulatedPacket add(EncapsulatedPacket packet, ByteBufAllocator alloc) {
+    /**
+     * Adds a part of the split packet.
+     *
+     * @param packet    part to add
+     * @param alloc     allocator used for the reassembled buffer
+     * @param composite whether to reassemble into a {@link CompositeByteBuf} of the parts instead of copying them
+     * @return the reassembled packet once all parts have been added, otherwise null
+     */
+    public EncapsulatedPacket add(EncapsulatedPacket packet, ByteBufAllocator alloc, boolean composite) {
         Objects.requireNonNull(packet, "packet cannot be null");
         if (!packet.isSplit()) throw new IllegalArgumentException("Packet is not split");
         if (this.refCnt() <= 0) throw new IllegalReferenceCountException(this.refCnt());
-        
+
         int partIndex = packet.getPartIndex();
         if (partIndex < 0 || partIndex >= this.expectedLength) {
             throw new IllegalArgumentException(String.format("Split packet part index out of range. Got %s, expected 0-%s",
                     partIndex, this.expectedLength - 1));
         }
 
-        if (this.packets.containsKey(partIndex)) {
+        if (partIndex >= this.packets.length) {
+            this.packets = Arrays.copyOf(this.packets, Math.min(RakUtils.powerOfTwoCeiling(partIndex + 1), this.expectedLength));
+        } else if (this.packets[partIndex] != null) {
             return null;
         }
-        
+
         // Retain the packet so it can be reassembled later.
-        this.packets.put(partIndex, packet.retain());
-
-        if (this.packets.size() == this.expectedLength) {
-            int sz = 0;
-            // Iterate by index to ensure we sum sizes and write bytes in the correct order
-            for (int i = 0; i < this.expectedLength; i++) {
-                EncapsulatedPacket netPacket = this.packets.get(i);
-                // netPacket should not be null here if size() == expectedLength and indices are verified
-                sz += netPacket.getBuffer().readableBytes();
-            }
-
-            // We can't use a composite buffer as the native code will choke on it
-            ByteBuf reassembled = alloc.ioBuffer(sz);
-            for (int i = 0; i < this.expectedLength; i++) {
-                EncapsulatedPacket netPacket = this.packets.get(i);
-                ByteBuf buf = netPacket.getBuffer();
-                reassembled.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
-            }
+        this.packets[partIndex] = packet.retain();
+        this.bufferedBytes += packet.getBuffer().readableBytes();
 
+        if (++this.received == this.expectedLength) {
+            ByteBuf reassembled = composite ? this.compose(alloc) : this.copy(alloc);
             return packet.fromSplit(reassembled);
         }
 
         return null;
     }
 
-    public boolean expired() {
+    private ByteBuf copy(ByteBufAllocator alloc) {
+        int sz = 0;
+        for (EncapsulatedPacket netPacket : this.packets) {
+            sz += netPacket.getBuffer().readableBytes();
+        }
+
+        ByteBuf reassembled = alloc.ioBuffer(sz);
+        for (EncapsulatedPacket netPacket : this.packets) {
+            ByteBuf buf = netPacket.getBuffer();
+            reassembled.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+        }
+        return reassembled;
+    }
+
+    private ByteBuf compose(ByteBufAllocator alloc) {
+        // Native transports and some consumers need contiguous memory, see RakUtils#consolidate
+        CompositeByteBuf reassembled = alloc.compositeDirectBuffer(this.expectedLength);
+        for (EncapsulatedPacket netPacket : this.packets) {
+            reassembled.addComponent(true, netPacket.getBuffer().retainedSlice());
+        }
+        return reassembled;
+    }
+
+    public int getPartId() {
+        return this.partId;
+    }
+
+    public int getExpectedLength() {
+        return this.expectedLength;
+    }
+
+    /**
+     * @return number of payload bytes of all parts added so far
+     */
+    public int getBufferedBytes() {
+        return this.bufferedBytes;
+    }
+
+    public boolean expired(long curTime) {
         // If we're waiting on a split packet for more than 30 seconds, the client on the other end is either severely
         // lagging, or has died.
         if (this.refCnt() <= 0) throw new IllegalReferenceCountException(this.refCnt());
-        return System.currentTimeMillis() - created >= 30000;
+        return curTime - this.created >= 30000;
     }
 
-@Override
+    @Override
     protected void deallocate() {
-        for (EncapsulatedPacket packet : this.packets.values()) {
-            ReferenceCountUtil.release(packet);
+        for (int i = 0; i < this.packets.length; i++) {
+            ReferenceCountUtil.release(this.packets[i]);
+            this.packets[i] = null;
         }
-        this.packets.clear();
+        this.bufferedBytes = 0;
     }
 
     @Override
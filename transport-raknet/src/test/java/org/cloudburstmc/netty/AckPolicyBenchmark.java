@@ -0,0 +1,169 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.cloudburstmc.netty;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import org.cloudburstmc.netty.channel.raknet.*;
+import org.cloudburstmc.netty.channel.raknet.config.RakChannelMetrics;
+import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
+import org.cloudburstmc.netty.channel.raknet.packet.RakMessage;
+import org.cloudburstmc.netty.handler.codec.raknet.common.RakSessionCodec;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the effect of each {@link RakAckPolicy} on round trip times and on the number of ACK datagrams over loopback.
+ * <p>
+ * This is not a unit test, run the main method manually. A client sends a timestamped message every
+ * {@value #SEND_INTERVAL_MS} ms and the server echoes it back. Both sides use the same policy. The benchmark reports
+ * the echo round trip time seen by the application, the RTT estimated by the client session, which is what
+ * retransmission timeouts are derived from, and the ACK datagrams sent by both sides per echoed message.
+ */
+public class AckPolicyBenchmark {
+
+    private static final int ECHO_PACKET_ID = 0xFE;
+    private static final int MESSAGES = 500;
+    private static final long SEND_INTERVAL_MS = 20;
+    private static final InetSocketAddress ADDRESS = new InetSocketAddress("127.0.0.1", 19133);
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-10s %12s %12s %16s %14s%n", "policy", "echo p50 ms", "echo p99 ms", "session rtt ms", "acks/message");
+        for (RakAckPolicy policy : RakAckPolicy.values()) {
+            run(policy);
+        }
+    }
+
+    private static void run(RakAckPolicy policy) throws Exception {
+        AckCounter acks = new AckCounter();
+        long[] samples = new long[MESSAGES];
+        AtomicInteger received = new AtomicInteger();
+
+        EventLoopGroup group = new NioEventLoopGroup();
+        try {
+            Channel server = new ServerBootstrap()
+                    .channelFactory(RakChannelFactory.server(NioDatagramChannel.class))
+                    .group(group)
+                    .option(RakChannelOption.RAK_SUPPORTED_PROTOCOLS, new int[]{11})
+                    .option(RakChannelOption.RAK_GUID, ThreadLocalRandom.current().nextLong())
+                    .childOption(RakChannelOption.RAK_ORDERING_CHANNELS, 1)
+                    .childOption(RakChannelOption.RAK_ACK_POLICY, policy)
+                    .childOption(RakChannelOption.RAK_METRICS, acks)
+                    .childHandler(new ChannelInitializer<RakChildChannel>() {
+                        @Override
+                        protected void initChannel(RakChildChannel ch) {
+                            ch.pipeline().addLast(new SimpleChannelInboundHandler<RakMessage>() {
+                                @Override
+                                protected void channelRead0(ChannelHandlerContext ctx, RakMessage message) {
+                                    ctx.writeAndFlush(new RakMessage(message.content().retain()));
+                                }
+                            });
+                        }
+                    })
+                    .bind(ADDRESS)
+                    .sync()
+                    .channel();
+
+            Channel client = new Bootstrap()
+                    .channelFactory(RakChannelFactory.client(NioDatagramChannel.class))
+                    .group(group)
+                    .option(RakChannelOption.RAK_PROTOCOL_VERSION, 11)
+                    .option(RakChannelOption.RAK_MTU, RakConstants.MAXIMUM_MTU_SIZE)
+                    .option(RakChannelOption.RAK_ORDERING_CHANNELS, 1)
+                    .option(RakChannelOption.RAK_ACK_POLICY, policy)
+                    .option(RakChannelOption.RAK_METRICS, acks)
+                    .handler(new ChannelInitializer<RakClientChannel>() {
+                        @Override
+                        protected void initChannel(RakClientChannel ch) {
+                            ch.pipeline().addLast(new SimpleChannelInboundHandler<RakMessage>() {
+                                @Override
+                                protected void channelRead0(ChannelHandlerContext ctx, RakMessage message) {
+                                    ByteBuf content = message.content();
+                                    if (content.readUnsignedByte() != ECHO_PACKET_ID) {
+                                        return;
+                                    }
+                                    int index = received.getAndIncrement();
+                                    if (index < MESSAGES) {
+                                        samples[index] = System.nanoTime() - content.readLong();
+                                    }
+                                }
+                            });
+                        }
+                    })
+                    .connect(ADDRESS)
+                    .sync()
+                    .channel();
+
+            // Let the handshake traffic settle before counting
+            Thread.sleep(500);
+            acks.reset();
+
+            for (int i = 0; i < MESSAGES; i++) {
+                ByteBuf buffer = Unpooled.buffer(9);
+                buffer.writeByte(ECHO_PACKET_ID);
+                buffer.writeLong(System.nanoTime());
+                client.writeAndFlush(new RakMessage(buffer));
+                Thread.sleep(SEND_INTERVAL_MS);
+            }
+            Thread.sleep(500);
+
+            int echoed = Math.min(received.get(), MESSAGES);
+            long[] sorted = Arrays.copyOf(samples, echoed);
+            Arrays.sort(sorted);
+            double sessionRtt = ((RakChannel) client).rakPipeline().get(RakSessionCodec.class).getRTT();
+            System.out.printf("%-10s %12.2f %12.2f %16.1f %14.2f%n", policy, percentile(sorted, 0.5), percentile(sorted, 0.99),
+                    sessionRtt, (double) acks.datagrams.get() / Math.max(echoed, 1));
+
+            client.close().sync();
+            server.close().sync();
+        } finally {
+            group.shutdownGracefully().sync();
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * (sorted.length - 1)))] / 1_000_000D;
+    }
+
+    /**
+     * Counts received ACK datagrams, each call of {@link #ackIn(int)} is one datagram.
+     */
+    private static class AckCounter implements RakChannelMetrics {
+        private final AtomicInteger datagrams = new AtomicInteger();
+
+        @Override
+        public void ackIn(int count) {
+            this.datagrams.incrementAndGet();
+        }
+
+        void reset() {
+            this.datagrams.set(0);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.cloudburstmc.netty;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import org.cloudburstmc.netty.channel.raknet.*;
+import org.cloudburstmc.netty.channel.raknet.config.RakChannelMetrics;
+import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
+import org.cloudburstmc.netty.channel.raknet.packet.RakMessage;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how many messages per second child event loops can hand to the RakNet pipeline on the parent event loop.
+ * <p>
+ * This is not a unit test, run the main method manually. Every child loop keeps writing batches of
+ * {@value #BATCH_SIZE} unreliable immediate messages to its sessions, so each message is written to the socket
+ * without waiting for the congestion window. The sessions have no remote peer, the datagrams go to unused loopback
+ * ports. Two modes are compared:
+ * <ul>
+ *     <li>batched: messages are written to the child channel, which hands them over in one task per flush</li>
+ *     <li>per message: messages are written to the RakNet pipeline directly, one cross-thread task per message</li>
+ * </ul>
+ */
+public class ChildWriteBenchmark {
+
+    private static final int[] CHILD_LOOPS = {1, 2, 4};
+    private static final int SESSIONS_PER_LOOP = 4;
+    private static final int BATCH_SIZE = 64;
+    private static final int MAX_PENDING = 64 * 1024;
+    private static final int PAYLOAD_SIZE = 64;
+    private static final long WARMUP_MS = 2_000;
+    private static final long MEASURE_MS = 5_000;
+
+    private static final ByteBuf PAYLOAD = Unpooled.directBuffer(PAYLOAD_SIZE).writeZero(PAYLOAD_SIZE);
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-12s %12s %20s%n", "mode", "child loops", "messages/s per loop");
+        for (int childLoops : CHILD_LOOPS) {
+            run("batched", childLoops, true);
+            run("per message", childLoops, false);
+        }
+    }
+
+    private static void run(String mode, int childLoops, boolean batched) throws Exception {
+        AtomicLong written = new AtomicLong();
+        AtomicLong sent = new AtomicLong();
+        RakChannelMetrics metrics = new RakChannelMetrics() {
+            @Override
+            public void rakDatagramsOut(int count) {
+                sent.addAndGet(count);
+            }
+        };
+
+        EventLoopGroup parentGroup = new NioEventLoopGroup(1);
+        EventLoopGroup childGroup = new NioEventLoopGroup(childLoops);
+        try {
+            RakServerChannel server = (RakServerChannel) new ServerBootstrap()
+                    .channelFactory(RakChannelFactory.server(NioDatagramChannel.class))
+                    .group(parentGroup, childGroup)
+                    .childOption(RakChannelOption.RAK_SESSION_TIMEOUT, Long.MAX_VALUE)
+                    .childOption(RakChannelOption.RAK_METRICS, metrics)
+                    .childHandler(new ChannelInitializer<RakChildChannel>() {
+                        @Override
+                        protected void initChannel(RakChildChannel ch) {
+                        }
+                    })
+                    .bind(new InetSocketAddress("127.0.0.1", 0))
+                    .sync()
+                    .channel();
+
+            InetSocketAddress localAddress = new InetSocketAddress("127.0.0.1", 19132);
+            List<RakChildChannel> channels = server.eventLoop().submit(() -> {
+                List<RakChildChannel> children = new ArrayList<>();
+                for (int i = 0; i < childLoops * SESSIONS_PER_LOOP; i++) {
+                    InetSocketAddress address = new InetSocketAddress("127.0.0.1", 40000 + i);
+                    children.add(server.createChildChannel(address, localAddress, i, 11, RakConstants.MAXIMUM_MTU_SIZE));
+                }
+                return children;
+            }).get();
+
+            for (RakChildChannel channel : channels) {
+                while (!channel.isRegistered()) {
+                    Thread.sleep(1);
+                }
+                channel.eventLoop().execute(() -> produce(channel, batched, written, sent));
+            }
+
+            Thread.sleep(WARMUP_MS);
+            long start = sent.get();
+            Thread.sleep(MEASURE_MS);
+            double perSecond = (sent.get() - start) / (MEASURE_MS / 1000D);
+            System.out.printf("%-12s %12d %20.0f%n", mode, childLoops, perSecond / childLoops);
+        } finally {
+            childGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).sync();
+            parentGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    private static void produce(RakChildChannel channel, boolean batched, AtomicLong written, AtomicLong sent) {
+        if (!channel.isActive()) {
+            return;
+        }
+
+        // Do not run further ahead of the parent loop than MAX_PENDING messages
+        if (written.get() - sent.get() < MAX_PENDING) {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                RakMessage message = new RakMessage(PAYLOAD.retainedDuplicate(), RakReliability.UNRELIABLE, RakPriority.IMMEDIATE);
+                if (batched) {
+                    channel.write(message);
+                } else {
+                    channel.rakPipeline().write(message);
+                }
+            }
+            if (batched) {
+                channel.flush();
+            } else {
+                channel.rakPipeline().flush();
+            }
+            written.addAndGet(BATCH_SIZE);
+        }
+        channel.eventLoop().execute(() -> produce(channel, batched, written, sent));
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.cloudburstmc.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.cloudburstmc.netty.channel.raknet.*;
+import org.cloudburstmc.netty.channel.raknet.packet.EncapsulatedPacket;
+import org.cloudburstmc.netty.channel.raknet.packet.RakDatagramPacket;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Simulates a bulk transfer over a lossy bottleneck link and prints the goodput of each congestion controller.
+ * <p>
+ * This is not a unit test, run the main method manually. The controllers are driven like the session codec drives them:
+ * one tick every {@value #TICK_INTERVAL} ms, stale datagrams first, then new datagrams up to the transmission bandwidth.
+ * The link forwards {@value #LINK_BANDWIDTH} bytes per ms with {@value #ONE_WAY_DELAY} ms delay in each direction and a
+ * drop tail queue of {@value #QUEUE_LIMIT} bytes. Random loss is reported as a NAK, queue overflow is only recovered
+ * by the retransmission timeout. The random seed is fixed, so runs are reproducible.
+ */
+public class CongestionGoodputBenchmark {
+
+    private static final int MTU = 1400;
+    private static final int PAYLOAD_SIZE = 1300;
+    private static final double LINK_BANDWIDTH = 5000;
+    private static final int ONE_WAY_DELAY = 50;
+    private static final int QUEUE_LIMIT = 256 * 1024;
+    private static final int TICK_INTERVAL = 10;
+    private static final long DURATION = 30_000;
+    private static final double[] LOSS_RATES = {0, 0.01, 0.03};
+
+    private static final ByteBuf PAYLOAD = Unpooled.wrappedBuffer(new byte[PAYLOAD_SIZE]);
+
+    public static void main(String[] args) {
+        Map<String, Function<RakClock, RakCongestionController>> controllers = new LinkedHashMap<>();
+        controllers.put("sliding window", clock -> new RakSlidingWindow(MTU));
+        controllers.put("bbr", clock -> new RakBbrController(MTU));
+        controllers.put("ledbat", clock -> new RakLedbatController(MTU, 25, clock));
+
+        System.out.printf("%-16s %6s %14s %10s %10s%n", "controller", "loss", "goodput MB/s", "rtt ms", "max queue");
+        for (double loss : LOSS_RATES) {
+            for (Map.Entry<String, Function<RakClock, RakCongestionController>> entry : controllers.entrySet()) {
+                Link link = new Link(loss, 1);
+                RakCongestionController controller = entry.getValue().apply(link::now);
+                long delivered = link.run(controller, DURATION);
+                System.out.printf("%-16s %5.0f%% %14.2f %10.1f %8.0fms%n", entry.getKey(), loss * 100,
+                        delivered / (double) DURATION / 1000D, controller.getRTT(), link.maxQueueDelay);
+            }
+        }
+    }
+
+    private static class Link {
+        private final double loss;
+        private final Random random;
+        private final Map<Integer, RakDatagramPacket> sent = new HashMap<>();
+        private final PriorityQueue<RakDatagramPacket> retransmissionQueue =
+                new PriorityQueue<>(Comparator.comparingLong(RakDatagramPacket::getNextSend));
+        // Arrival of the acknowledgement: time, sequence index and 1 if it is a NAK
+        private final PriorityQueue<long[]> feedback = new PriorityQueue<>(Comparator.comparingLong(f -> f[0]));
+        private long now;
+        private int sequenceIndex;
+        private double linkFree;
+        private double maxQueueDelay;
+
+        Link(double loss, long seed) {
+            this.loss = loss;
+            this.random = new Random(seed);
+        }
+
+        long now() {
+            return this.now;
+        }
+
+        long run(RakCongestionController controller, long duration) {
+            long delivered = 0;
+            for (this.now = 0; this.now < duration; this.now++) {
+                long[] f;
+                while ((f = this.feedback.peek()) != null && f[0] <= this.now) {
+                    this.feedback.poll();
+                    RakDatagramPacket datagram = this.sent.remove((int) f[1]);
+                    if (datagram == null) {
+                        continue; // Already resent after the retransmission timeout
+                    }
+                    this.retransmissionQueue.remove(datagram);
+
+                    if (f[2] == 1) {
+                        controller.onNak();
+                        this.send(controller, datagram);
+                    } else {
+                        controller.onAck(this.now, datagram, this.sequenceIndex);
+                        delivered += PAYLOAD_SIZE;
+                        datagram.release();
+                    }
+                }
+
+                if (this.now % TICK_INTERVAL != 0) {
+                    continue;
+                }
+                controller.onTick(this.now);
+
+                int resendCount = 0;
+                int retransmissionBandwidth = controller.getRetransmissionBandwidth();
+                RakDatagramPacket datagram;
+                while ((datagram = this.retransmissionQueue.peek()) != null && datagram.getNextSend() <= this.now &&
+                        retransmissionBandwidth >= datagram.getSize()) {
+                    retransmissionBandwidth -= datagram.getSize();
+                    this.retransmissionQueue.poll();
+                    this.sent.remove(datagram.getSequenceIndex());
+                    this.send(controller, datagram);
+                    resendCount++;
+                }
+                if (resendCount > 0) {
+                    controller.onResend(this.sequenceIndex);
+                }
+
+                int transmissionBandwidth = controller.getTransmissionBandwidth();
+                while (transmissionBandwidth >= MTU) {
+                    datagram = newDatagram(this.now);
+                    transmissionBandwidth -= datagram.getSize();
+                    this.send(controller, datagram);
+                }
+            }
+
+            for (RakDatagramPacket datagram : this.sent.values()) {
+                datagram.release();
+            }
+            return delivered;
+        }
+
+        private void send(RakCongestionController controller, RakDatagramPacket datagram) {
+            boolean resend = datagram.getSequenceIndex() != -1;
+            datagram.setSequenceIndex(this.sequenceIndex++);
+            datagram.setRetransmitted(resend);
+            controller.onSend(datagram);
+            if (!resend) {
+                controller.onReliableSend(datagram);
+            }
+            datagram.setNextSend(this.now + controller.getRtoForRetransmission());
+            this.sent.put(datagram.getSequenceIndex(), datagram);
+            this.retransmissionQueue.add(datagram);
+
+            this.linkFree = Math.max(this.linkFree, this.now);
+            double queueDelay = this.linkFree - this.now;
+            if (queueDelay * LINK_BANDWIDTH + datagram.getSize() > QUEUE_LIMIT) {
+                return; // Tail drop, the sender only notices it by the retransmission timeout
+            }
+            this.maxQueueDelay = Math.max(this.maxQueueDelay, queueDelay);
+            this.linkFree += datagram.getSize() / LINK_BANDWIDTH;
+
+            boolean lost = this.random.nextDouble() < this.loss;
+            long arrival = (long) this.linkFree + 2 * ONE_WAY_DELAY;
+            this.feedback.add(new long[]{arrival, datagram.getSequenceIndex(), lost ? 1 : 0});
+        }
+
+        private static RakDatagramPacket newDatagram(long curTime) {
+            EncapsulatedPacket packet = EncapsulatedPacket.newInstance();
+            packet.setReliability(RakReliability.RELIABLE);
+            packet.setBuffer(PAYLOAD.retainedDuplicate());
+
+            RakDatagramPacket datagram = RakDatagramPacket.newInstance();
+            datagram.addPacket(packet);
+            datagram.setSendTime(curTime);
+            return datagram;
+        }
+    }
+}
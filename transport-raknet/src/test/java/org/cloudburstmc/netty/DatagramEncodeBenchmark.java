@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.cloudburstmc.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import org.cloudburstmc.netty.channel.raknet.RakConstants;
+import org.cloudburstmc.netty.channel.raknet.RakReliability;
+import org.cloudburstmc.netty.channel.raknet.packet.EncapsulatedPacket;
+import org.cloudburstmc.netty.channel.raknet.packet.RakDatagramPacket;
+import org.cloudburstmc.netty.handler.codec.raknet.common.RakDatagramCodec;
+
+import java.util.List;
+
+/**
+ * Compares the contiguous datagram encoding of {@link RakDatagramCodec} with the composite buffer encoding it replaced.
+ * <p>
+ * This is not a unit test, run the main method manually. Both encoders run in an {@link EmbeddedChannel} with the
+ * default allocator. Only encoding is measured, the socket write of the composite buffer would gather its components.
+ */
+public class DatagramEncodeBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 500_000;
+    private static final int ITERATIONS = 2_000_000;
+
+    public static void main(String[] args) {
+        System.out.printf("%-16s %16s %16s%n", "datagram", "composite ns/op", "contiguous ns/op");
+        run("20 x 32 bytes", 20, 32);
+        run("4 x 300 bytes", 4, 300);
+        run("1 x 1200 bytes", 1, 1200);
+    }
+
+    private static void run(String name, int packets, int payloadSize) {
+        RakDatagramPacket datagram = newDatagram(packets, payloadSize);
+        try {
+            double composite = measure(new EmbeddedChannel(new CompositeDatagramEncoder()), datagram);
+            double contiguous = measure(new EmbeddedChannel(new RakDatagramCodec()), datagram);
+            System.out.printf("%-16s %16.1f %16.1f%n", name, composite, contiguous);
+        } finally {
+            datagram.release();
+        }
+    }
+
+    private static double measure(EmbeddedChannel channel, RakDatagramPacket datagram) {
+        encode(channel, datagram, WARMUP_ITERATIONS);
+        long start = System.nanoTime();
+        encode(channel, datagram, ITERATIONS);
+        double nanosPerOp = (double) (System.nanoTime() - start) / ITERATIONS;
+        channel.finishAndReleaseAll();
+        return nanosPerOp;
+    }
+
+    private static void encode(EmbeddedChannel channel, RakDatagramPacket datagram, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            channel.writeOutbound(datagram.retain());
+            ByteBuf encoded = channel.readOutbound();
+            encoded.release();
+            // Encode the packets again next time instead of reusing the body kept for resends
+            datagram.setEncodedBody(null);
+        }
+    }
+
+    private static RakDatagramPacket newDatagram(int packets, int payloadSize) {
+        RakDatagramPacket datagram = RakDatagramPacket.newInstance();
+        datagram.setSequenceIndex(1);
+        for (int i = 0; i < packets; i++) {
+            EncapsulatedPacket packet = EncapsulatedPacket.newInstance();
+            packet.setReliability(RakReliability.RELIABLE_ORDERED);
+            packet.setReliabilityIndex(i);
+            packet.setOrderingIndex(i);
+            packet.setBuffer(Unpooled.directBuffer(payloadSize).writeZero(payloadSize));
+            datagram.addPacket(packet);
+        }
+        return datagram;
+    }
+
+    /**
+     * Encoding used before {@link RakDatagramCodec} wrote datagrams into a single buffer: a composite buffer with one
+     * header component for the datagram and a header and payload component for every encapsulated packet.
+     */
+    private static class CompositeDatagramEncoder extends MessageToMessageEncoder<RakDatagramPacket> {
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, RakDatagramPacket packet, List<Object> out) {
+            ByteBuf header = ctx.alloc().ioBuffer(RakConstants.RAKNET_DATAGRAM_HEADER_SIZE);
+            header.writeByte(packet.getFlags());
+            header.writeMediumLE(packet.getSequenceIndex());
+
+            CompositeByteBuf buf = ctx.alloc().compositeBuffer((packet.getPackets().size() * 2) + 1);
+            buf.addComponent(true, header);
+
+            for (EncapsulatedPacket encapsulated : packet.getPackets()) {
+                ByteBuf packetHeader = ctx.alloc().ioBuffer(encapsulated.getHeaderSize());
+                writeHeader(encapsulated, packetHeader);
+                buf.addComponent(true, packetHeader);
+                buf.addComponent(true, encapsulated.getBuffer().retain());
+            }
+            out.add(buf);
+        }
+
+        private static void writeHeader(EncapsulatedPacket packet, ByteBuf header) {
+            RakReliability reliability = packet.getReliability();
+            int flags = reliability.ordinal() << 5;
+            if (packet.isSplit()) {
+                flags |= RakConstants.FLAG_PACKET_PAIR;
+            }
+            if (packet.isNeedsBAS()) {
+                flags |= RakConstants.FLAG_NEEDS_B_AND_AS;
+            }
+            header.writeByte(flags);
+            header.writeShort(packet.getBuffer().readableBytes() << 3);
+
+            if (reliability.isReliable()) {
+                header.writeMediumLE(packet.getReliabilityIndex());
+            }
+            if (reliability.isSequenced()) {
+                header.writeMediumLE(packet.getSequenceIndex());
+            }
+            if (reliability.isOrdered() || reliability.isSequenced()) {
+                header.writeMediumLE(packet.getOrderingIndex());
+                header.writeByte(packet.getOrderingChannel());
+            }
+            if (packet.isSplit()) {
+                header.writeInt(packet.getPartCount());
+                header.writeShort(packet.getPartId());
+                header.writeInt(packet.getPartIndex());
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty;
+
+import org.cloudburstmc.netty.util.DeficitRoundRobinQueue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DeficitRoundRobinQueueTests {
+
+    private static final int[] QUANTA = {8192, 8192, 4096, 1024};
+
+    @Test
+    public void testSharesUnderSaturation() {
+        DeficitRoundRobinQueue<int[]> queue = new DeficitRoundRobinQueue<>(QUANTA, element -> element[1]);
+        // Keep HIGH, NORMAL and LOW saturated with packets of different sizes
+        int[] sizes = {0, 200, 1400, 1200};
+        for (int i = 0; i < 50000; i++) {
+            for (int level = 1; level < sizes.length; level++) {
+                queue.offer(level, new int[]{level, sizes[level]});
+            }
+        }
+
+        long[] sent = new long[QUANTA.length];
+        long total = 0;
+        while (total < 4 * 1024 * 1024) {
+            int[] element = queue.poll();
+            sent[element[0]] += element[1];
+            total += element[1];
+        }
+
+        long quantaSum = QUANTA[1] + QUANTA[2] + QUANTA[3];
+        for (int level = 1; level < QUANTA.length; level++) {
+            double expected = (double) QUANTA[level] / quantaSum;
+            Assertions.assertEquals(expected, (double) sent[level] / total, 0.01, "Unexpected share of queue " + level);
+        }
+    }
+
+    @Test
+    public void testFifoAndPeek() {
+        DeficitRoundRobinQueue<int[]> queue = new DeficitRoundRobinQueue<>(QUANTA, element -> element[1]);
+        for (int i = 0; i < 100; i++) {
+            queue.offer(3, new int[]{i, 1000});
+        }
+
+        for (int i = 0; i < 100; i++) {
+            int[] element = queue.peek();
+            Assertions.assertSame(element, queue.peek());
+            Assertions.assertEquals(i, element[0]);
+            queue.remove();
+        }
+        Assertions.assertTrue(queue.isEmpty());
+        Assertions.assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.cloudburstmc.netty;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.cloudburstmc.netty.channel.raknet.*;
+import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
+import org.cloudburstmc.netty.channel.raknet.packet.RakMessage;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures echo latency over a lossy loopback link with and without parity datagrams.
+ * <p>
+ * This is not a unit test, run the main method manually. Both peers drop outgoing UDP datagrams at random and delay the
+ * rest by {@value #ONE_WAY_DELAY_MS} ms. A client sends a timestamped reliable message every {@value #SEND_INTERVAL_MS} ms,
+ * the server echoes it, and the p50, p99 and p99.9 round trip times seen by the application are reported. Loss only
+ * starts after the handshake. The random seed is fixed, but the timing of the event loops still varies between runs.
+ */
+public class FecLatencyBenchmark {
+
+    private static final int ECHO_PACKET_ID = 0xFE;
+    private static final int MESSAGES = 4_000;
+    private static final long SEND_INTERVAL_MS = 5;
+    private static final long ONE_WAY_DELAY_MS = 25;
+    private static final double[] LOSS_RATES = {0.01, 0.03};
+    private static final int[] FEC_GROUP_SIZES = {0, 4, 8};
+    private static final InetSocketAddress ADDRESS = new InetSocketAddress("127.0.0.1", 19134);
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%6s %10s %10s %10s %12s%n", "loss", "fec group", "p50 ms", "p99 ms", "p99.9 ms");
+        for (double loss : LOSS_RATES) {
+            for (int groupSize : FEC_GROUP_SIZES) {
+                run(loss, groupSize);
+            }
+        }
+    }
+
+    private static void run(double loss, int groupSize) throws Exception {
+        long[] samples = new long[MESSAGES];
+        AtomicInteger received = new AtomicInteger();
+        LossyLink serverLink = new LossyLink(loss, 1);
+        LossyLink clientLink = new LossyLink(loss, 2);
+
+        EventLoopGroup group = new NioEventLoopGroup();
+        try {
+            RakServerChannel server = (RakServerChannel) new ServerBootstrap()
+                    .channelFactory(RakChannelFactory.server(NioDatagramChannel.class))
+                    .group(group)
+                    .option(RakChannelOption.RAK_SUPPORTED_PROTOCOLS, new int[]{11})
+                    .option(RakChannelOption.RAK_GUID, ThreadLocalRandom.current().nextLong())
+                    .childOption(RakChannelOption.RAK_ORDERING_CHANNELS, 1)
+                    .childOption(RakChannelOption.RAK_FEC_GROUP_SIZE, groupSize)
+                    .childHandler(new ChannelInitializer<RakChildChannel>() {
+                        @Override
+                        protected void initChannel(RakChildChannel ch) {
+                            ch.pipeline().addLast(new SimpleChannelInboundHandler<RakMessage>() {
+                                @Override
+                                protected void channelRead0(ChannelHandlerContext ctx, RakMessage message) {
+                                    ctx.writeAndFlush(new RakMessage(message.content().retain()));
+                                }
+                            });
+                        }
+                    })
+                    .bind(ADDRESS)
+                    .sync()
+                    .channel();
+            server.parent().pipeline().addFirst(serverLink);
+
+            RakClientChannel client = (RakClientChannel) new Bootstrap()
+                    .channelFactory(RakChannelFactory.client(NioDatagramChannel.class))
+                    .group(group)
+                    .option(RakChannelOption.RAK_PROTOCOL_VERSION, 11)
+                    .option(RakChannelOption.RAK_MTU, RakConstants.MAXIMUM_MTU_SIZE)
+                    .option(RakChannelOption.RAK_ORDERING_CHANNELS, 1)
+                    .option(RakChannelOption.RAK_FEC_GROUP_SIZE, groupSize)
+                    .handler(new ChannelInitializer<RakClientChannel>() {
+                        @Override
+                        protected void initChannel(RakClientChannel ch) {
+                            ch.parent().pipeline().addFirst(clientLink);
+                            ch.pipeline().addLast(new SimpleChannelInboundHandler<RakMessage>() {
+                                @Override
+                                protected void channelRead0(ChannelHandlerContext ctx, RakMessage message) {
+                                    ByteBuf content = message.content();
+                                    if (content.readUnsignedByte() != ECHO_PACKET_ID) {
+                                        return;
+                                    }
+                                    int index = received.getAndIncrement();
+                                    if (index < MESSAGES) {
+                                        samples[index] = System.nanoTime() - content.readLong();
+                                    }
+                                }
+                            });
+                        }
+                    })
+                    .connect(ADDRESS)
+                    .sync()
+                    .channel();
+
+            Thread.sleep(500);
+            serverLink.lossy = true;
+            clientLink.lossy = true;
+
+            for (int i = 0; i < MESSAGES; i++) {
+                ByteBuf buffer = Unpooled.buffer(9);
+                buffer.writeByte(ECHO_PACKET_ID);
+                buffer.writeLong(System.nanoTime());
+                client.writeAndFlush(new RakMessage(buffer));
+                Thread.sleep(SEND_INTERVAL_MS);
+            }
+            Thread.sleep(2_000);
+
+            int echoed = Math.min(received.get(), MESSAGES);
+            long[] sorted = Arrays.copyOf(samples, echoed);
+            Arrays.sort(sorted);
+            System.out.printf("%5.0f%% %10s %10.1f %10.1f %12.1f%n", loss * 100, groupSize == 0 ? "off" : Integer.toString(groupSize),
+                    percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 0.999));
+
+            client.close().sync();
+            server.close().sync();
+        } finally {
+            group.shutdownGracefully().sync();
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * (sorted.length - 1)))] / 1_000_000D;
+    }
+
+    /**
+     * Drops outgoing UDP datagrams at random and delays the others. Added in front of the socket, so it sees every
+     * datagram including acknowledgements and parity.
+     */
+    private static class LossyLink extends ChannelOutboundHandlerAdapter {
+        private final double loss;
+        private final Random random;
+        private volatile boolean lossy;
+
+        LossyLink(double loss, long seed) {
+            this.loss = loss;
+            this.random = new Random(seed);
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            promise.trySuccess();
+            if (!this.lossy) {
+                ctx.write(msg);
+                return;
+            }
+            if (this.random.nextDouble() < this.loss) {
+                ReferenceCountUtil.release(msg);
+                return;
+            }
+            ctx.executor().schedule(() -> ctx.writeAndFlush(msg), ONE_WAY_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+}
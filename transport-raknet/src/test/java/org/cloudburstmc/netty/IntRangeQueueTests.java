@@ -0,0 +1,69 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty;
+
+import org.cloudburstmc.netty.util.IntRangeQueue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class IntRangeQueueTests {
+
+    @Test
+    public void testQueue() {
+        Queue<int[]> ranges = new ArrayDeque<>();
+        IntRangeQueue queue = new IntRangeQueue(2);
+
+        for (int i = 0; i < 256; i++) {
+            int start = ThreadLocalRandom.current().nextInt(0, 0xFFFFFF);
+            int end = start + ThreadLocalRandom.current().nextInt(0, 64);
+            queue.offer(start, end);
+            ranges.add(new int[]{start, end});
+
+            if (ThreadLocalRandom.current().nextInt(4) == 0) {
+                int[] expected = ranges.poll();
+                Assertions.assertEquals(expected[0], queue.peekStart());
+                Assertions.assertEquals(expected[1], queue.peekEnd());
+                queue.remove();
+            }
+        }
+
+        while (!queue.isEmpty() && !ranges.isEmpty()) {
+            int[] expected = ranges.poll();
+            Assertions.assertEquals(expected[0], queue.peekStart());
+            Assertions.assertEquals(expected[1], queue.peekEnd());
+            queue.remove();
+        }
+        Assertions.assertTrue(queue.isEmpty() && ranges.isEmpty(), "Queue is not empty");
+    }
+
+    @Test
+    public void testExtendLast() {
+        IntRangeQueue queue = new IntRangeQueue();
+        queue.offer(0, 0);
+        queue.offer(5, 5);
+        queue.setLastEnd(queue.peekLastEnd() + 1);
+
+        Assertions.assertEquals(6, queue.peekLastEnd());
+        queue.remove();
+        Assertions.assertEquals(5, queue.peekStart());
+        Assertions.assertEquals(6, queue.peekEnd());
+    }
+}
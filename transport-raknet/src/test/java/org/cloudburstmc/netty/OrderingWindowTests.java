@@ -0,0 +1,38 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty;
+
+import org.cloudburstmc.netty.util.OrderingWindow;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OrderingWindowTests {
+
+    @Test
+    public void testWindowTrim() {
+        OrderingWindow<Integer> window = new OrderingWindow<>(16, 8192);
+        Assertions.assertFalse(window.trim(), "Window without buffer was trimmed");
+
+        window.put(1, 1);
+        Assertions.assertFalse(window.trim(), "Window with elements was trimmed");
+
+        window.advance();
+        Assertions.assertEquals(1, window.poll());
+        Assertions.assertTrue(window.trim(), "Empty window was not trimmed");
+        Assertions.assertEquals(2, window.getReadIndex());
+    }
+}
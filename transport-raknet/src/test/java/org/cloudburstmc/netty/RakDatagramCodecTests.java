@@ -0,0 +1,131 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.cloudburstmc.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.cloudburstmc.netty.channel.raknet.RakReliability;
+import org.cloudburstmc.netty.channel.raknet.packet.EncapsulatedPacket;
+import org.cloudburstmc.netty.channel.raknet.packet.RakDatagramPacket;
+import org.cloudburstmc.netty.handler.codec.raknet.common.RakDatagramCodec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class RakDatagramCodecTests {
+
+    private static final int GROUP_SIZE = 2;
+
+    @Test
+    public void testLateOriginalIsNotDecodedTwice() {
+        // Datagrams 0 and 1, parity of both, datagrams 2 and 3, parity of both
+        List<ByteBuf> sent = encode(4);
+        ByteBuf duplicate = sent.get(1).copy();
+        EmbeddedChannel receiver = receiver(3);
+
+        receiver.writeInbound(sent.get(0));
+        // Parity arrives before datagram 1, which is only reordered
+        receiver.writeInbound(sent.get(2));
+        receiver.writeInbound(sent.get(1));
+        receiver.writeInbound(sent.get(3));
+        receiver.writeInbound(sent.get(4));
+        receiver.writeInbound(sent.get(5));
+        receiver.writeInbound(duplicate);
+
+        Assertions.assertEquals(Arrays.asList(0, 1, 2, 3), readSequenceIndexes(receiver));
+        receiver.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testLostDatagramIsRebuiltAfterReorderWindow() {
+        List<ByteBuf> sent = encode(4);
+        EmbeddedChannel receiver = receiver(2);
+
+        receiver.writeInbound(sent.get(0));
+        // Datagram 1 is lost
+        sent.get(1).release();
+        receiver.writeInbound(sent.get(2));
+        receiver.writeInbound(sent.get(3));
+        Assertions.assertEquals(Arrays.asList(0, 2), readSequenceIndexes(receiver));
+
+        // Two datagrams after the lost one, it is rebuilt before the second is passed on
+        receiver.writeInbound(sent.get(4));
+        RakDatagramPacket rebuilt = receiver.readInbound();
+        Assertions.assertEquals(1, rebuilt.getSequenceIndex());
+        Assertions.assertTrue(ByteBufUtil.equals(Unpooled.wrappedBuffer(payload(1)), rebuilt.getPackets().get(0).getBuffer()));
+        rebuilt.release();
+        Assertions.assertEquals(Arrays.asList(3), readSequenceIndexes(receiver));
+
+        sent.get(5).release();
+        receiver.finishAndReleaseAll();
+    }
+
+    private static EmbeddedChannel receiver(int delayDatagrams) {
+        RakDatagramCodec codec = new RakDatagramCodec();
+        codec.setFecGroupSize(GROUP_SIZE, delayDatagrams, 0);
+        return new EmbeddedChannel(codec);
+    }
+
+    private static List<ByteBuf> encode(int datagrams) {
+        RakDatagramCodec codec = new RakDatagramCodec();
+        codec.setFecGroupSize(GROUP_SIZE, 0, 0);
+        EmbeddedChannel sender = new EmbeddedChannel(codec);
+
+        for (int i = 0; i < datagrams; i++) {
+            EncapsulatedPacket packet = EncapsulatedPacket.newInstance();
+            packet.setReliability(RakReliability.UNRELIABLE);
+            packet.setBuffer(Unpooled.wrappedBuffer(payload(i)));
+
+            RakDatagramPacket datagram = RakDatagramPacket.newInstance();
+            datagram.setSequenceIndex(i);
+            datagram.addPacket(packet);
+            sender.writeOutbound(datagram);
+        }
+
+        List<ByteBuf> encoded = new ArrayList<>();
+        ByteBuf buffer;
+        while ((buffer = sender.readOutbound()) != null) {
+            encoded.add(buffer);
+        }
+        sender.finishAndReleaseAll();
+        Assertions.assertEquals(datagrams + datagrams / GROUP_SIZE, encoded.size());
+        return encoded;
+    }
+
+    private static byte[] payload(int sequenceIndex) {
+        // Different lengths, so rebuilding has to restore the length as well
+        byte[] payload = new byte[10 + sequenceIndex * 7];
+        Arrays.fill(payload, (byte) sequenceIndex);
+        return payload;
+    }
+
+    private static List<Integer> readSequenceIndexes(EmbeddedChannel channel) {
+        List<Integer> sequenceIndexes = new ArrayList<>();
+        RakDatagramPacket packet;
+        while ((packet = channel.readInbound()) != null) {
+            sequenceIndexes.add(packet.getSequenceIndex());
+            packet.release();
+        }
+        return sequenceIndexes;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty;
+
+import org.cloudburstmc.netty.util.IntRangeQueue;
+import org.cloudburstmc.netty.util.ReorderWindow;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ReorderWindowTests {
+
+    @Test
+    public void testReorderedDatagramsAreNotReported() {
+        ReorderWindow window = new ReorderWindow();
+        IntRangeQueue naks = new IntRangeQueue();
+
+        window.addMissing(5, 7, 0);
+        Assertions.assertTrue(window.remove(6));
+        Assertions.assertFalse(window.remove(6));
+        Assertions.assertFalse(window.remove(8));
+
+        Assertions.assertEquals(2, window.pollAll(naks));
+        Assertions.assertEquals(5, naks.peekStart());
+        Assertions.assertEquals(5, naks.peekEnd());
+        naks.remove();
+        Assertions.assertEquals(7, naks.peekStart());
+        Assertions.assertEquals(7, naks.peekEnd());
+        naks.remove();
+        Assertions.assertTrue(window.isEmpty() && naks.isEmpty());
+    }
+
+    @Test
+    public void testExpiry() {
+        ReorderWindow window = new ReorderWindow(2, 4096);
+        IntRangeQueue naks = new IntRangeQueue();
+
+        window.addMissing(0, 1, 100);
+        window.addMissing(10, 19, 200);
+
+        // Nothing has expired yet
+        Assertions.assertEquals(0, window.poll(naks, -1, 99));
+        // Expired by index
+        Assertions.assertEquals(5, window.poll(naks, 12, Long.MIN_VALUE));
+        Assertions.assertEquals(0, naks.peekStart());
+        Assertions.assertEquals(1, naks.peekEnd());
+        naks.remove();
+        Assertions.assertEquals(10, naks.peekStart());
+        Assertions.assertEquals(12, naks.peekEnd());
+        naks.remove();
+        // Expired by time
+        Assertions.assertEquals(7, window.poll(naks, Integer.MIN_VALUE, 200));
+        Assertions.assertEquals(13, naks.peekStart());
+        Assertions.assertEquals(19, naks.peekEnd());
+        Assertions.assertTrue(window.isEmpty());
+    }
+
+    @Test
+    public void testMaxCapacity() {
+        ReorderWindow window = new ReorderWindow(2, 16);
+        Assertions.assertTrue(window.addMissing(0, 15, 0));
+        Assertions.assertFalse(window.addMissing(16, 16, 0));
+        Assertions.assertEquals(16, window.size());
+    }
+}
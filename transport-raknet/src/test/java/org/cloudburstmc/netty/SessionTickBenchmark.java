@@ -0,0 +1,123 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.cloudburstmc.netty;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import org.cloudburstmc.netty.channel.raknet.RakChannelFactory;
+import org.cloudburstmc.netty.channel.raknet.RakChildChannel;
+import org.cloudburstmc.netty.channel.raknet.RakConstants;
+import org.cloudburstmc.netty.channel.raknet.RakServerChannel;
+import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the CPU time an event loop spends per flush interval on idle sessions.
+ * <p>
+ * This is not a unit test, run the main method manually. Each run binds a server on a single event loop and creates
+ * the sessions directly on it. For comparison, it also measures the same number of no-op tasks scheduled at the flush
+ * interval, which is the scheduling overhead of one task per session without any session work.
+ */
+public class SessionTickBenchmark {
+
+    private static final int[] SESSION_COUNTS = {1_000, 10_000, 50_000};
+    private static final int FLUSH_INTERVAL = 10;
+    private static final long WARMUP_MS = 2_000;
+    private static final long MEASURE_MS = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        System.out.printf("%-18s %10s %14s %16s%n", "mode", "sessions", "us per tick", "ns per session");
+        for (int sessions : SESSION_COUNTS) {
+            report("session ticker", sessions, measureSessions(threads, sessions));
+            report("scheduled no-ops", sessions, measureScheduledTasks(threads, sessions));
+        }
+    }
+
+    private static void report(String mode, int sessions, long nanosPerTick) {
+        System.out.printf("%-18s %10d %14.1f %16.1f%n", mode, sessions, nanosPerTick / 1000D, (double) nanosPerTick / sessions);
+    }
+
+    private static long measureSessions(ThreadMXBean threads, int sessions) throws Exception {
+        EventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            RakServerChannel server = (RakServerChannel) new ServerBootstrap()
+                    .channelFactory(RakChannelFactory.server(NioDatagramChannel.class))
+                    .group(group)
+                    .childOption(RakChannelOption.RAK_FLUSH_INTERVAL, FLUSH_INTERVAL)
+                    .childOption(RakChannelOption.RAK_SESSION_TIMEOUT, Long.MAX_VALUE)
+                    .childHandler(new ChannelInitializer<RakChildChannel>() {
+                        @Override
+                        protected void initChannel(RakChildChannel ch) {
+                        }
+                    })
+                    .bind(new InetSocketAddress("127.0.0.1", 0))
+                    .sync()
+                    .channel();
+
+            InetSocketAddress localAddress = new InetSocketAddress("127.0.0.1", 19132);
+            server.eventLoop().submit(() -> {
+                for (int i = 0; i < sessions; i++) {
+                    byte[] ip = {10, (byte) (i >> 16), (byte) (i >> 8), (byte) i};
+                    InetSocketAddress address = new InetSocketAddress(InetAddress.getByAddress(ip), 19132);
+                    server.createChildChannel(address, localAddress, i, 11, RakConstants.MAXIMUM_MTU_SIZE);
+                }
+                return null;
+            }).sync();
+
+            return measure(threads, server.eventLoop());
+        } finally {
+            group.shutdownGracefully(0, 5, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    private static long measureScheduledTasks(ThreadMXBean threads, int tasks) throws Exception {
+        EventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            EventLoop eventLoop = group.next();
+            Runnable task = () -> {
+            };
+            for (int i = 0; i < tasks; i++) {
+                eventLoop.scheduleAtFixedRate(task, 0, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+            }
+            return measure(threads, eventLoop);
+        } finally {
+            group.shutdownGracefully(0, 5, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    /**
+     * @return CPU time in nanoseconds the event loop thread used per flush interval
+     */
+    private static long measure(ThreadMXBean threads, EventLoop eventLoop) throws Exception {
+        long threadId = eventLoop.submit(() -> Thread.currentThread().getId()).get();
+        Thread.sleep(WARMUP_MS);
+        long start = threads.getThreadCpuTime(threadId);
+        Thread.sleep(MEASURE_MS);
+        return (threads.getThreadCpuTime(threadId) - start) / (MEASURE_MS / FLUSH_INTERVAL);
+    }
+}